@@ -1,13 +1,21 @@
 package com.shalom.shalomhotel.Controller;
 
 import com.shalom.shalomhotel.Dto.BookingRequestDTO;
+import com.shalom.shalomhotel.Dto.GroupBookingRequestDTO;
 import com.shalom.shalomhotel.Dto.Response;
+import com.shalom.shalomhotel.Service.BookingExportService;
+import com.shalom.shalomhotel.Service.IdempotencyService;
 import com.shalom.shalomhotel.Service.interfac.IBookingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -15,15 +23,35 @@ public class BookingController {
 
     @Autowired
     private IBookingService bookingService;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private BookingExportService bookingExportService;
     @PostMapping
-    public ResponseEntity<Response> createBooking(@RequestBody BookingRequestDTO bookingRequest) {
-        Response response = bookingService.createBooking(bookingRequest);
-
-        if (response.getBooking() != null) {
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<Response> createBooking(@RequestBody BookingRequestDTO bookingRequest,
+                                                  @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "createBooking", bookingRequest, () -> {
+            Response response = bookingService.createBooking(bookingRequest);
+
+            if (response.getBooking() != null) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        });
+    }
+    @PostMapping("/group")
+    public ResponseEntity<Response> createGroupBooking(@RequestBody GroupBookingRequestDTO groupRequest,
+                                                       @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "createBookings", groupRequest, () -> {
+            Response response = bookingService.createBookings(groupRequest);
+
+            if (response.getBookingList() != null) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        });
     }
     @GetMapping("/confirmation/{confirmationCode}")
     public ResponseEntity<Response> getBookingByConfirmationCode(
@@ -40,75 +68,130 @@ public class BookingController {
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
-    public ResponseEntity<Response> getUserBookings(@PathVariable Long userId) {
-        Response response = bookingService.getUserBookings(userId);
+    public ResponseEntity<Response> getUserBookings(@PathVariable Long userId,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limit) {
+        Response response = bookingService.getUserBookings(userId, cursor, limit);
         return ResponseEntity.ok(response);
     }
 
     @PutMapping("/cancel/{confirmationCode}")
-    public ResponseEntity<Response> cancelBooking(@PathVariable String confirmationCode) {
-        Response response = bookingService.cancelBooking(confirmationCode);
-
-        if (response.getBooking() != null) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<Response> cancelBooking(@PathVariable String confirmationCode,
+                                                  @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "cancelBooking", confirmationCode, () -> {
+            Response response = bookingService.cancelBooking(confirmationCode);
+
+            if (response.getBooking() != null) {
+                return ResponseEntity.ok(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        });
     }
 
     @PutMapping("/confirm/{confirmationCode}")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Response> confirmBooking(@PathVariable String confirmationCode) {
-        Response response = bookingService.confirmBooking(confirmationCode);
+    public ResponseEntity<Response> confirmBooking(@PathVariable String confirmationCode,
+                                                   @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "confirmBooking", confirmationCode, () -> {
+            Response response = bookingService.confirmBooking(confirmationCode);
+
+            if (response.getBooking() != null) {
+                return ResponseEntity.ok(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        });
+    }
 
-        if (response.getBooking() != null) {
+    @GetMapping("/search")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> searchBookings(@RequestParam String searchTerm,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(required = false) Integer limit) {
+        Response response = bookingService.searchBookings(searchTerm, page, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    // Prefix matches for the front desk: field is code, email or room; all three when omitted
+    @GetMapping("/autocomplete")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> autocomplete(@RequestParam String prefix,
+                                                 @RequestParam(required = false) String field,
+                                                 @RequestParam(required = false) Integer limit) {
+        Response response = bookingService.autocomplete(prefix, field, limit);
+        if (response.getSuggestions() != null) {
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
     }
 
-    @GetMapping("/search")
+    @GetMapping("/all")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Response> searchBookings(@RequestParam String searchTerm) {
-        Response response = bookingService.searchBookings(searchTerm);
+    public ResponseEntity<Response> getAllBookings(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
+        Response response = bookingService.getAllBookings(cursor, limit);
         return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/all")
+    // Streams every booking made in [from, to) as NDJSON (default) or CSV
+    @GetMapping("/export")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Response> getAllBookings() {
-        Response response = bookingService.getAllBookings();
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> exportBookings(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        BookingExportService.Format exportFormat = BookingExportService.Format.fromName(format);
+        if (exportFormat == null) {
+            Response response = new Response();
+            response.setMessage("Unsupported export format: " + format);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+
+        StreamingResponseBody body = out -> bookingExportService.export(exportFormat, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Response> getBookingsByStatus(@PathVariable String status) {
-        Response response = bookingService.getBookingsByStatus(status);
+    public ResponseEntity<Response> getBookingsByStatus(@PathVariable String status,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        Response response = bookingService.getBookingsByStatus(status, cursor, limit);
         return ResponseEntity.ok(response);
     }
     @PutMapping("/check-in/{confirmationCode}")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Response> checkInBooking(@PathVariable String confirmationCode) {
-        Response response = bookingService.checkInBooking(confirmationCode);
-
-        if (response.getBooking() != null) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<Response> checkInBooking(@PathVariable String confirmationCode,
+                                                   @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "checkInBooking", confirmationCode, () -> {
+            Response response = bookingService.checkInBooking(confirmationCode);
+
+            if (response.getBooking() != null) {
+                return ResponseEntity.ok(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        });
     }
 
     @PutMapping("/check-out/{confirmationCode}")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<Response> checkOutBooking(@PathVariable String confirmationCode) {
-        Response response = bookingService.checkOutBooking(confirmationCode);
-
-        if (response.getBooking() != null) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
+    public ResponseEntity<Response> checkOutBooking(@PathVariable String confirmationCode,
+                                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "checkOutBooking", confirmationCode, () -> {
+            Response response = bookingService.checkOutBooking(confirmationCode);
+
+            if (response.getBooking() != null) {
+                return ResponseEntity.ok(response);
+            } else {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+            }
+        });
     }
 }
\ No newline at end of file
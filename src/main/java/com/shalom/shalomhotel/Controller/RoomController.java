@@ -8,10 +8,13 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
@@ -192,6 +195,96 @@ public class RoomController {
         }
     }
 
+    @GetMapping("/availability/summary")
+    public ResponseEntity<Response> checkAvailabilitySummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkInDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate checkOutDate,
+            @RequestParam(required = false) Integer numberOfGuests) {
+
+        Response response = roomService.getAvailabilitySummary(checkInDate, checkOutDate, numberOfGuests);
+
+        if (response.getAvailableRoomList() != null && !response.getAvailableRoomList().isEmpty()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(response);
+        }
+    }
+
+    @GetMapping("/availability/flexible")
+    public ResponseEntity<Response> checkFlexibleAvailability(
+            @RequestParam String roomType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate windowStart,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate windowEnd,
+            @RequestParam Integer nights,
+            @RequestParam(required = false) String sortBy) {
+
+        Response response = roomService.getFlexibleAvailability(roomType, windowStart, windowEnd, nights, sortBy);
+
+        if (response.getAvailableRoomList() != null && !response.getAvailableRoomList().isEmpty()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).body(response);
+        }
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<Response> getAvailabilityCalendar(
+            @RequestParam String roomType,
+            @RequestParam String month,
+            @RequestParam(required = false) Integer months,
+            WebRequest webRequest) {
+
+        // ETag from the type's availability version, taken before the calendar is built, so an unchanged
+        // calendar is answered with 304 Not Modified without computing it
+        String version = roomService.getAvailabilityCalendarVersion(roomType);
+        String etag = null;
+        if (version != null) {
+            String content = roomType.trim() + "|" + month + "|" + months + "|" + version;
+            etag = "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+        }
+
+        Response response = roomService.getAvailabilityCalendar(roomType, month, months);
+
+        if (response.getCalendarDays() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        if (etag == null) {
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.ok().eTag(etag).body(response);
+    }
+
+    @GetMapping("/inventory")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> getRoomTypeInventory(
+            @RequestParam Long roomTypeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+
+        Response response = roomService.getRoomTypeInventory(roomTypeId, fromDate, toDate);
+
+        if (response.getInventoryList() != null) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+    }
+
+    @PostMapping("/inventory/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<Response> rebuildInventory() {
+        Response response = roomService.rebuildInventory();
+
+        if (response.getMessage().contains("successfully")) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
 
 
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.shalom.shalomhotel.entity.Booking.BookingStatus;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class BookingDTO {
@@ -29,6 +30,47 @@ public class BookingDTO {
     private LocalDateTime confirmationDate;
     private LocalDateTime cancellationDate;
     private Integer numberOfNights;
+    private String groupCode;
+    private LocalDateTime holdExpiresAt;
+
+    public BookingDTO() {
+    }
+
+    // Constructor projection: BookingRepository selects straight into this shape, with room, room type
+    // and user joined in the same statement, so listing bookings never touches a lazy association
+    public BookingDTO(Long id, String bookingConfirmationCode, String groupCode,
+                      Long roomId, String roomNumber, String roomType,
+                      Long userId, String userEmail, String userName,
+                      LocalDate checkInDate, LocalDate checkOutDate,
+                      Integer numberOfGuests, Integer numOfAdults, Integer numOfChildren,
+                      BigDecimal totalPrice, BookingStatus bookingStatus, String specialRequests,
+                      LocalDateTime bookingDate, LocalDateTime confirmationDate, LocalDateTime cancellationDate,
+                      LocalDateTime holdExpiresAt) {
+        this.id = id;
+        this.bookingConfirmationCode = bookingConfirmationCode;
+        this.groupCode = groupCode;
+        this.roomId = roomId;
+        this.roomNumber = roomNumber;
+        this.roomType = roomType;
+        this.userId = userId;
+        this.userEmail = userEmail;
+        this.userName = userName;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.numberOfGuests = numberOfGuests;
+        this.numOfAdults = numOfAdults;
+        this.numOfChildren = numOfChildren;
+        this.totalPrice = totalPrice;
+        this.bookingStatus = bookingStatus;
+        this.specialRequests = specialRequests;
+        this.bookingDate = bookingDate;
+        this.confirmationDate = confirmationDate;
+        this.cancellationDate = cancellationDate;
+        this.holdExpiresAt = holdExpiresAt;
+
+        // Same rule as BookingService: whole nights between the two dates, however long the stay
+        this.numberOfNights = (int) ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+    }
 
     // Getters and Setters
     public Long getId() { return id; }
@@ -39,6 +81,12 @@ public class BookingDTO {
         this.bookingConfirmationCode = bookingConfirmationCode;
     }
 
+    public String getGroupCode() { return groupCode; }
+    public void setGroupCode(String groupCode) { this.groupCode = groupCode; }
+
+    public LocalDateTime getHoldExpiresAt() { return holdExpiresAt; }
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) { this.holdExpiresAt = holdExpiresAt; }
+
     public Long getRoomId() { return roomId; }
     public void setRoomId(Long roomId) { this.roomId = roomId; }
 
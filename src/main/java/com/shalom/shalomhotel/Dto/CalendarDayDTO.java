@@ -0,0 +1,25 @@
+package com.shalom.shalomhotel.Dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDate;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CalendarDayDTO {
+    private LocalDate date;
+    private Integer availableCount;
+
+    public CalendarDayDTO() {
+    }
+
+    public CalendarDayDTO(LocalDate date, Integer availableCount) {
+        this.date = date;
+        this.availableCount = availableCount;
+    }
+
+    // Getters and Setters
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public Integer getAvailableCount() { return availableCount; }
+    public void setAvailableCount(Integer availableCount) { this.availableCount = availableCount; }
+}
@@ -0,0 +1,36 @@
+package com.shalom.shalomhotel.Dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDate;
+import java.util.List;
+
+// One stay for many rooms. Each entry of rooms names either a roomId or a roomTypeId plus its guests;
+// the user, dates and special requests are shared by the whole group.
+public class GroupBookingRequestDTO {
+    private Long userId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate checkInDate;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate checkOutDate;
+
+    private String specialRequests;
+    private List<BookingRequestDTO> rooms;
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDate getCheckInDate() { return checkInDate; }
+    public void setCheckInDate(LocalDate checkInDate) { this.checkInDate = checkInDate; }
+
+    public LocalDate getCheckOutDate() { return checkOutDate; }
+    public void setCheckOutDate(LocalDate checkOutDate) { this.checkOutDate = checkOutDate; }
+
+    public String getSpecialRequests() { return specialRequests; }
+    public void setSpecialRequests(String specialRequests) { this.specialRequests = specialRequests; }
+
+    public List<BookingRequestDTO> getRooms() { return rooms; }
+    public void setRooms(List<BookingRequestDTO> rooms) { this.rooms = rooms; }
+}
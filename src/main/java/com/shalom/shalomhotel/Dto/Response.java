@@ -8,6 +8,7 @@ public class Response {
     private String message;
     private String statusCode;
     private String bookingConfirmationCode;
+    private String groupCode;
     private String token;
     private String role;
     private String expirationTime;
@@ -21,6 +22,11 @@ public class Response {
     private List<AvailableRoomDTO> availableRoomList;
     private BookingDTO booking;
     private List<BookingDTO> bookingList;
+    private List<RoomTypeInventoryDTO> inventoryList;
+    private List<CalendarDayDTO> calendarDays;
+    private String nextCursor;
+    private Long totalResults;
+    private List<SuggestionDTO> suggestions;
 
     // Getters and Setters
     public String getMessage() { return message; }
@@ -34,6 +40,9 @@ public class Response {
         this.bookingConfirmationCode = bookingConfirmationCode;
     }
 
+    public String getGroupCode() { return groupCode; }
+    public void setGroupCode(String groupCode) { this.groupCode = groupCode; }
+
     public String getToken() { return token; }
     public void setToken(String token) { this.token = token; }
 
@@ -71,4 +80,19 @@ public class Response {
 
     public List<BookingDTO> getBookingList() { return bookingList; }
     public void setBookingList(List<BookingDTO> bookingList) { this.bookingList = bookingList; }
-}
\ No newline at end of file
+
+    public List<RoomTypeInventoryDTO> getInventoryList() { return inventoryList; }
+    public void setInventoryList(List<RoomTypeInventoryDTO> inventoryList) { this.inventoryList = inventoryList; }
+
+    public List<CalendarDayDTO> getCalendarDays() { return calendarDays; }
+    public void setCalendarDays(List<CalendarDayDTO> calendarDays) { this.calendarDays = calendarDays; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public Long getTotalResults() { return totalResults; }
+    public void setTotalResults(Long totalResults) { this.totalResults = totalResults; }
+
+    public List<SuggestionDTO> getSuggestions() { return suggestions; }
+    public void setSuggestions(List<SuggestionDTO> suggestions) { this.suggestions = suggestions; }
+}
@@ -22,6 +22,28 @@ public class RoomDTO {
     private String photoUrl;
     private String amenities;
 
+    public RoomDTO() {
+    }
+
+    // Constructor projection used by RoomRepository: room and room type columns from a single join
+    public RoomDTO(Long id, String roomNumber, Integer floorNumber, RoomStatus status, Boolean hasView,
+                   Boolean isAccessible, String specialFeatures, String roomTypeName, String description,
+                   BigDecimal pricePerNight, String photoUrl, Integer maxCapacity, String amenities) {
+        this.id = id;
+        this.roomNumber = roomNumber;
+        this.floorNumber = floorNumber;
+        this.status = status;
+        this.hasView = hasView;
+        this.isAccessible = isAccessible;
+        this.specialFeatures = specialFeatures;
+        this.roomTypeName = roomTypeName;
+        this.description = description;
+        this.pricePerNight = pricePerNight;
+        this.photoUrl = photoUrl;
+        this.maxCapacity = maxCapacity;
+        this.amenities = amenities;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
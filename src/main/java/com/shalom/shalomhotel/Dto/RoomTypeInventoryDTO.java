@@ -0,0 +1,29 @@
+package com.shalom.shalomhotel.Dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDate;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomTypeInventoryDTO {
+    private Long roomTypeId;
+    private LocalDate stayDate;
+    private Integer capacity;
+    private Integer sold;
+    private Integer available;
+
+    // Getters and Setters
+    public Long getRoomTypeId() { return roomTypeId; }
+    public void setRoomTypeId(Long roomTypeId) { this.roomTypeId = roomTypeId; }
+
+    public LocalDate getStayDate() { return stayDate; }
+    public void setStayDate(LocalDate stayDate) { this.stayDate = stayDate; }
+
+    public Integer getCapacity() { return capacity; }
+    public void setCapacity(Integer capacity) { this.capacity = capacity; }
+
+    public Integer getSold() { return sold; }
+    public void setSold(Integer sold) { this.sold = sold; }
+
+    public Integer getAvailable() { return available; }
+    public void setAvailable(Integer available) { this.available = available; }
+}
@@ -0,0 +1,24 @@
+package com.shalom.shalomhotel.Dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SuggestionDTO {
+    private String field;
+    private String value;
+
+    public SuggestionDTO() {
+    }
+
+    public SuggestionDTO(String field, String value) {
+        this.field = field;
+        this.value = value;
+    }
+
+    // Getters and Setters
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+
+    public String getValue() { return value; }
+    public void setValue(String value) { this.value = value; }
+}
@@ -21,6 +21,7 @@ public class CorsConfig {
         config.setAllowedOrigins(List.of(frontendUrl)); // Only allow your frontend origin
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("Idempotent-Replayed"));
         config.setAllowCredentials(true); // If using cookies or Authorization headers
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,7 +2,9 @@
 package com.shalom.shalomhotel.Security;
 
 import com.shalom.shalomhotel.Service.CustomUserDetailService;
+import com.shalom.shalomhotel.Service.TokenVersionService;
 import com.shalom.shalomhotel.utils.JWTUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,11 +28,15 @@ public class JWTAuthFilter extends OncePerRequestFilter {
 
     @Autowired
     private CustomUserDetailService customUserDetailService;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwtToken;
+        final Claims claims;
         final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -39,11 +45,12 @@ public class JWTAuthFilter extends OncePerRequestFilter {
         }
 
         jwtToken = authHeader.substring(7);
-        userEmail = jwtUtils.extractUsername(jwtToken);
+        claims = jwtUtils.parseClaims(jwtToken);
+        userEmail = claims.getSubject();
 
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = customUserDetailService.loadUserByUsername(userEmail);
-            if (jwtUtils.isValidToken(jwtToken, userDetails)) {
+            UserDetails userDetails = resolvePrincipal(claims, userEmail);
+            if (userDetails != null && jwtUtils.isValidToken(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -57,4 +64,19 @@ public class JWTAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    // Current tokens carry id, role and version, so the only lookup is the cached version check.
+    // Tokens issued before those claims existed still load the principal from the database.
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        if (!jwtUtils.hasAuthorizationClaims(claims)) {
+            return customUserDetailService.loadUserByUsername(userEmail);
+        }
+
+        Long userId = ((Number) claims.get(JWTUtils.USER_ID_CLAIM)).longValue();
+        long tokenVersion = ((Number) claims.get(JWTUtils.TOKEN_VERSION_CLAIM)).longValue();
+        if (!tokenVersionService.isCurrent(userId, tokenVersion)) {
+            return null;
+        }
+        return new UserPrincipal(userId, userEmail, null, claims.get(JWTUtils.ROLE_CLAIM, String.class));
+    }
 }
@@ -43,6 +43,9 @@ public class SecurityConfig {
                                 "/api/rooms/types/names",
                                 "/api/rooms/types/**",
                                 "/api/rooms/availability",
+                                "/api/rooms/availability/summary",
+                                "/api/rooms/availability/flexible",
+                                "/api/rooms/calendar",
                                 "/api/rooms/search",
                                 "/api/rooms/all",
                                 "/api/rooms/{id}"
@@ -57,6 +60,7 @@ public class SecurityConfig {
                                 "/api/rooms/updatestatus/**",
                                 "/api/rooms/delete/**",
                                 "/api/rooms/inventory",
+                                "/api/rooms/inventory/**",
                                 "/user/all"
                         ).authenticated()
 
@@ -0,0 +1,107 @@
+package com.shalom.shalomhotel.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shalom.shalomhotel.Dto.RoomDTO;
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Bounded, TTL-evicted cache of availability search results keyed by room type and stay.
+// Hit, miss and eviction counts are published as the "availability" cache metrics.
+@Service
+public class AvailabilityCache {
+
+    private record Key(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+    }
+
+    private final boolean enabled;
+    private final Cache<Key, List<RoomDTO>> cache;
+
+    // Bumped on every invalidation of a type; a result computed under an older generation is not stored,
+    // so a search racing with a booking cannot put a stale entry back after it was invalidated
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+    // Bumped when every type is invalidated at once
+    private final AtomicLong globalGeneration = new AtomicLong();
+    // Generations restart at zero with the process and differ between nodes; the start time tells them apart
+    private final long startedAt = System.currentTimeMillis();
+
+    public AvailabilityCache(@Value("${availability.cache.enabled:true}") boolean enabled,
+                             @Value("${availability.cache.max-size:10000}") long maxSize,
+                             @Value("${availability.cache.ttl-seconds:30}") long ttlSeconds,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "availability");
+    }
+
+    public List<RoomDTO> get(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, Supplier<List<RoomDTO>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Key key = new Key(roomTypeId, checkIn, checkOut);
+        List<RoomDTO> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        String version = version(roomTypeId);
+        List<RoomDTO> result = loader.get();
+        if (version(roomTypeId).equals(version)) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    // Changes whenever the type's availability may have changed on this node: a booking, cancellation or room
+    // change of the type, or a resync of the availability index, which picks up other nodes' writes. Cheap enough
+    // to derive an ETag from before anything is computed.
+    public String version(Long roomTypeId) {
+        return startedAt + "-" + globalGeneration.get() + "-" + generation(roomTypeId).get();
+    }
+
+    // Drops the type's entries whose stay overlaps [fromDate, toDate)
+    public void invalidate(Long roomTypeId, LocalDate fromDate, LocalDate toDate) {
+        TransactionUtils.afterCommit(() -> {
+            generation(roomTypeId).incrementAndGet();
+            cache.asMap().keySet().removeIf(key -> key.roomTypeId().equals(roomTypeId)
+                    && key.checkIn().isBefore(toDate)
+                    && key.checkOut().isAfter(fromDate));
+        });
+    }
+
+    // Drops every entry of the type, e.g. after a room status change that affects all dates
+    public void invalidateType(Long roomTypeId) {
+        TransactionUtils.afterCommit(() -> {
+            generation(roomTypeId).incrementAndGet();
+            cache.asMap().keySet().removeIf(key -> key.roomTypeId().equals(roomTypeId));
+        });
+    }
+
+    // Drops every entry, e.g. after the availability index was resynced from the database
+    public void invalidateAll() {
+        TransactionUtils.afterCommit(() -> {
+            globalGeneration.incrementAndGet();
+            cache.invalidateAll();
+        });
+    }
+
+    private AtomicLong generation(Long roomTypeId) {
+        return generations.computeIfAbsent(roomTypeId, k -> new AtomicLong());
+    }
+}
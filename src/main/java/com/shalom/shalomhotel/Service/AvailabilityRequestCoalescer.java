@@ -0,0 +1,82 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.Dto.RoomDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Single-flight for availability searches: concurrent identical searches share one in-flight computation.
+// Works independently of AvailabilityCache, so it also protects the database when caching is disabled.
+@Service
+public class AvailabilityRequestCoalescer {
+
+    private record Key(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+    }
+
+    private final boolean enabled;
+    private final long maxWaitMillis;
+    private final Map<Key, CompletableFuture<List<RoomDTO>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedRequests;
+    private final Counter timedOutWaits;
+
+    public AvailabilityRequestCoalescer(@Value("${availability.coalescing.enabled:true}") boolean enabled,
+                                        @Value("${availability.coalescing.max-wait-ms:2000}") long maxWaitMillis,
+                                        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWaitMillis = maxWaitMillis;
+        this.coalescedRequests = Counter.builder("availability.requests.coalesced")
+                .description("Availability searches answered by another request's in-flight computation")
+                .register(meterRegistry);
+        this.timedOutWaits = Counter.builder("availability.requests.coalesce.timeouts")
+                .description("Coalesced availability searches that gave up waiting and computed on their own")
+                .register(meterRegistry);
+    }
+
+    public List<RoomDTO> execute(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, Supplier<List<RoomDTO>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Key key = new Key(roomTypeId, checkIn, checkOut);
+        CompletableFuture<List<RoomDTO>> own = new CompletableFuture<>();
+        CompletableFuture<List<RoomDTO>> existing = inFlight.putIfAbsent(key, own);
+
+        if (existing == null) {
+            try {
+                List<RoomDTO> result = loader.get();
+                own.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, own);
+            }
+        }
+
+        coalescedRequests.increment();
+        try {
+            return existing.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOutWaits.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            // The leading request failed; retry on this request's own account
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loader.get();
+        }
+    }
+}
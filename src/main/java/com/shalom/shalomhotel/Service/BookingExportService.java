@@ -0,0 +1,172 @@
+package com.shalom.shalomhotel.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes bookings to an output stream row by row, straight from a streaming JDBC result set.
+// Rows are flat projections rather than entities, so only the current row is ever held and heap use does not
+// grow with the size of the table.
+@Service
+@Slf4j
+public class BookingExportService {
+
+    // Rows between flushes of the output
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private static final String[] COLUMNS = {
+            "id", "bookingConfirmationCode", "groupCode", "bookingStatus", "userId", "userEmail", "userName",
+            "roomId", "roomNumber", "roomType", "checkInDate", "checkOutDate", "numberOfGuests", "numOfAdults",
+            "numOfChildren", "totalPrice", "bookingDate", "confirmationDate", "cancellationDate"
+    };
+
+    public enum Format {
+        NDJSON("ndjson", MediaType.parseMediaType("application/x-ndjson")),
+        CSV("csv", MediaType.parseMediaType("text/csv"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() { return extension; }
+        public MediaType getMediaType() { return mediaType; }
+
+        public static Format fromName(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Bookings made in [fromDate, toDate), either bound optional. Runs in its own read-only transaction
+    // because the response body is written after the controller method has returned.
+    public void export(Format format, LocalDate fromDate, LocalDate toDate, OutputStream out) {
+        LocalDateTime from = fromDate != null ? fromDate.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime to = toDate != null ? toDate.atStartOfDay() : LocalDateTime.of(9999, 12, 31, 23, 59);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Integer rows = transactionTemplate.execute(status -> {
+            try (Stream<BookingRepository.ExportView> bookings = bookingRepository.streamForExport(from, to)) {
+                return format == Format.CSV ? writeCsv(bookings.iterator(), out) : writeNdjson(bookings.iterator(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} bookings as {}", rows, format);
+    }
+
+    private int writeNdjson(Iterator<BookingRepository.ExportView> bookings, OutputStream out) throws IOException {
+        int rows = 0;
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        while (bookings.hasNext()) {
+            Object[] values = values(bookings.next());
+            json.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                json.writeFieldName(COLUMNS[i]);
+                writeJsonValue(json, values[i]);
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+
+            if (++rows % FLUSH_INTERVAL == 0) {
+                json.flush();
+            }
+        }
+        json.flush();
+        return rows;
+    }
+
+    private int writeCsv(Iterator<BookingRepository.ExportView> bookings, OutputStream out) throws IOException {
+        int rows = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write(String.join(",", COLUMNS));
+        csv.write("\r\n");
+        while (bookings.hasNext()) {
+            Object[] values = values(bookings.next());
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    csv.write(',');
+                }
+                csv.write(csvField(values[i]));
+            }
+            csv.write("\r\n");
+
+            if (++rows % FLUSH_INTERVAL == 0) {
+                csv.flush();
+            }
+        }
+        csv.flush();
+        return rows;
+    }
+
+    // Same order as COLUMNS
+    private static Object[] values(BookingRepository.ExportView booking) {
+        return new Object[]{
+                booking.getId(), booking.getBookingConfirmationCode(), booking.getGroupCode(), booking.getBookingStatus(),
+                booking.getUserId(), booking.getUserEmail(), booking.getUserName(),
+                booking.getRoomId(), booking.getRoomNumber(), booking.getRoomType(),
+                booking.getCheckInDate(), booking.getCheckOutDate(), booking.getNumberOfGuests(), booking.getNumOfAdults(),
+                booking.getNumOfChildren(), booking.getTotalPrice(), booking.getBookingDate(), booking.getConfirmationDate(),
+                booking.getCancellationDate()
+        };
+    }
+
+    private static void writeJsonValue(JsonGenerator json, Object value) throws IOException {
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof Long number) {
+            json.writeNumber(number);
+        } else if (value instanceof Integer number) {
+            json.writeNumber(number);
+        } else if (value instanceof java.math.BigDecimal number) {
+            json.writeNumber(number);
+        } else {
+            json.writeString(value.toString());
+        }
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,76 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+// Expiry times of PENDING booking holds, ordered by deadline.
+// Only holds that are due are ever handed out, so releasing them never scans the bookings table.
+@Service
+@Slf4j
+public class BookingHoldQueue {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final DelayQueue<Hold> holds = new DelayQueue<>();
+
+    private record Hold(Long bookingId, long expiresAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((Hold) other).expiresAtMillis);
+        }
+    }
+
+    // Re-creates the queue from the database; holds that ran out while the application was down are due at once
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<BookingRepository.HoldView> pending = bookingRepository.findPendingHolds();
+        for (BookingRepository.HoldView hold : pending) {
+            holds.add(new Hold(hold.getId(), toMillis(hold.getHoldExpiresAt())));
+        }
+        log.info("Booking hold queue loaded with {} pending holds", pending.size());
+    }
+
+    // Queued once the booking is committed, so a rolled back booking never reaches the queue
+    public void schedule(Long bookingId, LocalDateTime expiresAt) {
+        if (expiresAt == null) {
+            return;
+        }
+        long expiresAtMillis = toMillis(expiresAt);
+        TransactionUtils.afterCommit(() -> holds.add(new Hold(bookingId, expiresAtMillis)));
+    }
+
+    // Removes and returns up to maxHolds booking ids whose hold has expired
+    public List<Long> drainExpired(int maxHolds) {
+        List<Hold> due = new ArrayList<>();
+        holds.drainTo(due, maxHolds);
+        List<Long> bookingIds = new ArrayList<>(due.size());
+        for (Hold hold : due) {
+            bookingIds.add(hold.bookingId());
+        }
+        return bookingIds;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
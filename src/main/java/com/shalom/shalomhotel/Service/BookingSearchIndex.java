@@ -0,0 +1,511 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.entity.Booking;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-memory trigram index over the searchable booking fields: confirmation code, guest email, guest name
+// and room number. A search only visits the bookings that contain every trigram of the term, so its cost
+// follows the number of matches rather than the size of the bookings table.
+// Posting lists are sorted primitive arrays of booking ids, not sets of boxed Longs, and a search keeps only
+// the hits of the requested pages instead of sorting every match.
+// The index is loaded once at startup and then kept current incrementally: local writes are applied as they commit,
+// and bookings made through other nodes are picked up by a catch-up read of the ids above the highest one indexed.
+// A full rebuild can additionally be scheduled with booking.search.rebuild-cron; it is off by default.
+// Terms shorter than a trigram are not answered from the index but by prefix queries on the indexed columns.
+@Service
+@Slf4j
+public class BookingSearchIndex {
+
+    // Shorter terms have no trigram of their own and go to the database instead (see searchByPrefix)
+    private static final int MIN_TERM_LENGTH = 3;
+
+    // Ids below the highest indexed one that every catch-up reads again: an id is allocated at insert time, so a
+    // slow transaction can commit after a higher id was already caught up
+    private static final int CATCH_UP_OVERLAP = 1000;
+    private static final int CATCH_UP_BATCH = 1000;
+
+    // Field weights, in the order of Doc.fields()
+    private static final int[] FIELD_WEIGHTS = {4, 3, 2, 1};
+
+    private static final int EXACT_MATCH = 100;
+    private static final int PREFIX_MATCH = 50;
+    private static final int SUBSTRING_MATCH = 10;
+
+    // The best score any booking can reach: an exact match on the strongest field
+    private static final int MAX_SCORE = EXACT_MATCH * FIELD_WEIGHTS[0];
+
+    // Best match first, then newest first. Booking ids are allocated in booking order, so the newest booking
+    // is the one with the highest id.
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(Comparator.comparingLong(Hit::bookingId).reversed());
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    // Rows read per field for a term shorter than a trigram
+    @Value("${booking.search.short-term-max-hits:500}")
+    private int shortTermMaxHits;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private volatile boolean loaded;
+
+    // Writes committed while a rebuild is reading the database, replayed onto the rebuilt index before the swap so
+    // they are not lost when the read missed them. Null when no rebuild is running; guarded by the lock.
+    private List<Consumer<Index>> pendingChanges;
+
+    private record Doc(long bookingId, String code, Long userId, String email, String name,
+                       Long roomId, String roomNumber) {
+
+        String[] fields() {
+            return new String[]{code, email, name, roomNumber};
+        }
+    }
+
+    private record Hit(long bookingId, int score) {
+    }
+
+    public record Page(long total, List<Long> bookingIds) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${booking.search.rebuild-cron:-}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Built outside the lock, so searches keep running against the current index meanwhile
+        Index rebuilt = null;
+        try {
+            Index next = new Index();
+            for (BookingRepository.SearchDocView row : bookingRepository.findAllSearchDocs()) {
+                next.add(toDoc(row));
+            }
+            next.trim();
+            rebuilt = next;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rebuilt != null) {
+                    for (Consumer<Index> change : pendingChanges) {
+                        change.accept(rebuilt);
+                    }
+                    index = rebuilt;
+                    loaded = true;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Booking search index built: {} bookings, {} trigrams", rebuilt.docs.size(), rebuilt.postings.size());
+    }
+
+    // Indexes bookings made through other nodes. Only ids above the highest indexed one (less the overlap) are read,
+    // so the cost follows the number of new bookings, not the size of the table. Bookings already indexed are left
+    // alone; their later changes on this node arrive through the update methods.
+    @Scheduled(initialDelayString = "${booking.search.catch-up-interval-ms:10000}",
+            fixedDelayString = "${booking.search.catch-up-interval-ms:10000}")
+    public void catchUp() {
+        if (!loaded) {
+            return;
+        }
+        long afterId;
+        lock.readLock().lock();
+        try {
+            afterId = Math.max(0, index.maxBookingId - CATCH_UP_OVERLAP);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<BookingRepository.SearchDocView> rows;
+        do {
+            rows = bookingRepository.findSearchDocsAfter(afterId, PageRequest.of(0, CATCH_UP_BATCH));
+            List<Doc> docs = rows.stream().map(BookingSearchIndex::toDoc).toList();
+            applyAfterCommit(current -> {
+                for (Doc doc : docs) {
+                    if (!current.docs.containsKey(doc.bookingId())) {
+                        current.add(doc);
+                    }
+                }
+            });
+            if (!rows.isEmpty()) {
+                afterId = rows.get(rows.size() - 1).getId();
+            }
+        } while (rows.size() == CATCH_UP_BATCH);
+    }
+
+    // ========== SEARCH ==========
+
+    // Bookings containing the term in any indexed field, best match first, then newest first.
+    // Only the best (page + 1) * size hits are kept, in a bounded heap; the rest are just counted.
+    public Page search(String term, int page, int size) {
+        String needle = normalize(term);
+        if (needle.isEmpty() || size <= 0) {
+            return new Page(0, List.of());
+        }
+        if (needle.length() < MIN_TERM_LENGTH) {
+            return searchByPrefix(needle, page, size);
+        }
+        int keep = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        long total = 0;
+        lock.readLock().lock();
+        try {
+            long[] candidates = candidates(index, needle);
+            // Newest first: a later candidate only displaces a kept hit with a strictly better score
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                Doc doc = index.docs.get(candidates[i]);
+                if (best.size() == keep && best.peek().score() == MAX_SCORE) {
+                    // The kept hits cannot be beaten any more; the remaining candidates only count towards the total
+                    if (matches(doc, needle)) {
+                        total++;
+                    }
+                    continue;
+                }
+                int score = score(doc, needle);
+                if (score == 0) {
+                    continue;
+                }
+                total++;
+                if (best.size() < keep) {
+                    best.add(new Hit(doc.bookingId(), score));
+                } else if (score > best.peek().score()) {
+                    best.poll();
+                    best.add(new Hit(doc.bookingId(), score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(BEST_FIRST);
+        return toPage(hits, total, page, size);
+    }
+
+    // A term shorter than a trigram: the newest bookings whose confirmation code, guest email or room number starts
+    // with it, at most shortTermMaxHits per field, ranked the same way as index hits. Guest names have no index
+    // to seek on and are not searched. The total counts the rows read, so it is bounded like the queries.
+    private Page searchByPrefix(String needle, int page, int size) {
+        String prefix = needle.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        PageRequest limit = PageRequest.of(0, shortTermMaxHits);
+
+        Map<Long, Doc> docs = new HashMap<>();
+        for (List<BookingRepository.SearchDocView> rows : List.of(
+                bookingRepository.findSearchDocsByCodePrefix(prefix, limit),
+                bookingRepository.findSearchDocsByEmailPrefix(prefix, limit),
+                bookingRepository.findSearchDocsByRoomNumberPrefix(prefix, limit))) {
+            for (BookingRepository.SearchDocView row : rows) {
+                docs.putIfAbsent(row.getId(), toDoc(row));
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Doc doc : docs.values()) {
+            int score = score(doc, needle);
+            if (score > 0) {
+                hits.add(new Hit(doc.bookingId(), score));
+            }
+        }
+        hits.sort(BEST_FIRST);
+        return toPage(hits, hits.size(), page, size);
+    }
+
+    private static Page toPage(List<Hit> sortedHits, long total, int page, int size) {
+        int from = (int) Math.min((long) page * size, sortedHits.size());
+        int to = (int) Math.min((long) from + size, sortedHits.size());
+        List<Long> ids = new ArrayList<>(to - from);
+        for (Hit hit : sortedHits.subList(from, to)) {
+            ids.add(hit.bookingId());
+        }
+        return new Page(total, ids);
+    }
+
+    // ========== UPDATES (applied after the surrounding transaction commits) ==========
+
+    public void indexBooking(Booking booking) {
+        Doc doc = new Doc(booking.getId(), normalize(booking.getBookingConfirmationCode()),
+                booking.getUser().getId(), normalize(booking.getUser().getEmail()), normalize(booking.getUser().getName()),
+                booking.getRoom().getId(), normalize(booking.getRoom().getRoomNumber()));
+        applyAfterCommit(current -> {
+            current.remove(doc.bookingId());
+            current.add(doc);
+        });
+    }
+
+    public void updateUser(Long userId, String email, String name) {
+        String normalizedEmail = normalize(email);
+        String normalizedName = normalize(name);
+        applyAfterCommit(current -> {
+            for (long bookingId : owned(current.bookingsByUser, userId)) {
+                Doc old = current.remove(bookingId);
+                current.add(new Doc(old.bookingId(), old.code(), userId, normalizedEmail, normalizedName,
+                        old.roomId(), old.roomNumber()));
+            }
+        });
+    }
+
+    public void updateRoom(Long roomId, String roomNumber) {
+        String normalizedRoomNumber = normalize(roomNumber);
+        applyAfterCommit(current -> {
+            for (long bookingId : owned(current.bookingsByRoom, roomId)) {
+                Doc old = current.remove(bookingId);
+                current.add(new Doc(old.bookingId(), old.code(), old.userId(), old.email(), old.name(),
+                        roomId, normalizedRoomNumber));
+            }
+        });
+    }
+
+    // The user's bookings were deleted along with the user
+    public void removeUser(Long userId) {
+        applyAfterCommit(current -> {
+            for (long bookingId : owned(current.bookingsByUser, userId)) {
+                current.remove(bookingId);
+            }
+        });
+    }
+
+    // The room's bookings were deleted along with the room
+    public void removeRoom(Long roomId) {
+        applyAfterCommit(current -> {
+            for (long bookingId : owned(current.bookingsByRoom, roomId)) {
+                current.remove(bookingId);
+            }
+        });
+    }
+
+    private void applyAfterCommit(Consumer<Index> change) {
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                change.accept(index);
+                if (pendingChanges != null) {
+                    pendingChanges.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // ========== INDEX ==========
+
+    private static final class Index {
+        final Map<Long, Doc> docs = new HashMap<>();
+        final Map<String, Postings> postings = new HashMap<>();
+        final Map<Long, Postings> bookingsByUser = new HashMap<>();
+        final Map<Long, Postings> bookingsByRoom = new HashMap<>();
+        // Highest booking id ever added; where the next catch-up starts reading
+        long maxBookingId;
+
+        void add(Doc doc) {
+            docs.put(doc.bookingId(), doc);
+            maxBookingId = Math.max(maxBookingId, doc.bookingId());
+            bookingsByUser.computeIfAbsent(doc.userId(), k -> new Postings()).add(doc.bookingId());
+            bookingsByRoom.computeIfAbsent(doc.roomId(), k -> new Postings()).add(doc.bookingId());
+            for (String trigram : docTrigrams(doc)) {
+                postings.computeIfAbsent(trigram, k -> new Postings()).add(doc.bookingId());
+            }
+        }
+
+        Doc remove(long bookingId) {
+            Doc doc = docs.remove(bookingId);
+            if (doc == null) {
+                return null;
+            }
+            detach(bookingsByUser, doc.userId(), bookingId);
+            detach(bookingsByRoom, doc.roomId(), bookingId);
+            for (String trigram : docTrigrams(doc)) {
+                detach(postings, trigram, bookingId);
+            }
+            return doc;
+        }
+
+        // Drops the spare capacity left by growing the arrays during a bulk load
+        void trim() {
+            postings.values().forEach(Postings::trim);
+            bookingsByUser.values().forEach(Postings::trim);
+            bookingsByRoom.values().forEach(Postings::trim);
+        }
+
+        private static <K> void detach(Map<K, Postings> map, K key, long bookingId) {
+            Postings ids = map.get(key);
+            if (ids != null && ids.remove(bookingId) && ids.size() == 0) {
+                map.remove(key);
+            }
+        }
+    }
+
+    // Sorted array of booking ids. Bookings are mostly indexed in id order, so adding one is usually an append;
+    // anything else is a binary search and an array copy.
+    private static final class Postings {
+        private long[] ids = new long[1];
+        private int size;
+
+        void add(long id) {
+            int at;
+            if (size == 0 || ids[size - 1] < id) {
+                at = size;
+            } else {
+                at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    return;
+                }
+                at = -at - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        void trim() {
+            if (ids.length > size) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+
+    // ========== HELPERS (callers hold the lock) ==========
+
+    // Bookings holding every trigram of the term, in ascending id order. The rarest list is the starting point
+    // and every other list is probed by binary search, so the cost follows the shortest list.
+    private static long[] candidates(Index index, String needle) {
+        List<Postings> lists = new ArrayList<>();
+        for (String trigram : trigrams(needle)) {
+            Postings list = index.postings.get(trigram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+
+        long[] result = lists.get(0).toArray();
+        int count = result.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            Postings list = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < count; j++) {
+                if (list.contains(result[j])) {
+                    result[kept++] = result[j];
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static long[] owned(Map<Long, Postings> owners, Long ownerId) {
+        Postings ids = owners.get(ownerId);
+        return ids == null ? new long[0] : ids.toArray();
+    }
+
+    // Exact field match beats prefix match beats substring match; stronger fields weigh more
+    private static int score(Doc doc, String needle) {
+        int best = 0;
+        String[] fields = doc.fields();
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i];
+            int match;
+            if (field.equals(needle)) {
+                match = EXACT_MATCH;
+            } else if (field.startsWith(needle)) {
+                match = PREFIX_MATCH;
+            } else if (field.contains(needle)) {
+                match = SUBSTRING_MATCH;
+            } else {
+                continue;
+            }
+            best = Math.max(best, match * FIELD_WEIGHTS[i]);
+        }
+        return best;
+    }
+
+    private static boolean matches(Doc doc, String needle) {
+        for (String field : doc.fields()) {
+            if (field.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> docTrigrams(Doc doc) {
+        Set<String> trigrams = new HashSet<>();
+        for (String field : doc.fields()) {
+            trigrams.addAll(trigrams(field));
+        }
+        return trigrams;
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            trigrams.add(value.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static Doc toDoc(BookingRepository.SearchDocView row) {
+        return new Doc(row.getId(), normalize(row.getBookingConfirmationCode()), row.getUserId(),
+                normalize(row.getUserEmail()), normalize(row.getUserName()), row.getRoomId(),
+                normalize(row.getRoomNumber()));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,105 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Hands out booking and group codes that are unique before they reach the database.
+// Format: PREFIX-yyyyMMdd-N12345 where N is this node's id, so nodes draw from disjoint ranges and each node
+// only has to remember the codes it issued today (36^5, about 60 million per node and day).
+@Service
+@Slf4j
+public class ConfirmationCodeAllocator {
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int RANDOM_LENGTH = 5;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final char nodeChar;
+    private volatile IssuedCodes issuedToday;
+
+    private static class IssuedCodes {
+        final LocalDate day;
+        final String datePart;
+        final Set<String> codes = ConcurrentHashMap.newKeySet();
+
+        IssuedCodes(LocalDate day) {
+            this.day = day;
+            this.datePart = day.format(DAY_FORMAT);
+        }
+    }
+
+    // Every application node needs its own booking.code.node-id (0-35)
+    public ConfirmationCodeAllocator(@Value("${booking.code.node-id:0}") int nodeId) {
+        this.nodeChar = ALPHABET[Math.floorMod(nodeId, ALPHABET.length)];
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        IssuedCodes issued = issued();
+        log.info("Confirmation code allocator ready for node {}: {} codes already issued today", nodeChar, issued.codes.size());
+    }
+
+    public String nextBookingCode() {
+        return next("SHL");
+    }
+
+    public String nextGroupCode() {
+        return next("GRP");
+    }
+
+    private String next(String prefix) {
+        IssuedCodes issued = issued();
+        String head = prefix + "-" + issued.datePart + "-" + nodeChar;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] tail = new char[RANDOM_LENGTH];
+        while (true) {
+            for (int i = 0; i < RANDOM_LENGTH; i++) {
+                tail[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            String code = head + new String(tail);
+            if (issued.codes.add(code)) {
+                return code;
+            }
+        }
+    }
+
+    // Codes of earlier days carry another date, so the set only has to cover today and starts over at midnight
+    private IssuedCodes issued() {
+        LocalDate today = LocalDate.now();
+        IssuedCodes issued = issuedToday;
+        if (issued != null && issued.day.equals(today)) {
+            return issued;
+        }
+        synchronized (this) {
+            issued = issuedToday;
+            if (issued == null || !issued.day.equals(today)) {
+                issued = load(today);
+                issuedToday = issued;
+            }
+            return issued;
+        }
+    }
+
+    // Picks up what this node issued earlier today, before a restart
+    private IssuedCodes load(LocalDate day) {
+        IssuedCodes issued = new IssuedCodes(day);
+        String nodeRange = "-" + issued.datePart + "-" + nodeChar + "%";
+        issued.codes.addAll(bookingRepository.findConfirmationCodesLike("SHL" + nodeRange));
+        issued.codes.addAll(bookingRepository.findGroupCodesLike("GRP" + nodeRange));
+        return issued;
+    }
+}
@@ -1,21 +1,75 @@
 package com.shalom.shalomhotel.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.shalom.shalomhotel.Exception.OurException;
+import com.shalom.shalomhotel.Security.UserPrincipal;
 import com.shalom.shalomhotel.repository.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Locale;
+
+// Principals are cached by email for a short time, so logins and tokens without the authorization claims
+// don't query users on every request. UserService evicts an entry whenever the user's credentials change.
 @Service
 public class CustomUserDetailService implements UserDetailsService {
 
-    @Autowired
-    private UserRepository userRepository;
+    private final UserRepository userRepository;
+    private final boolean cacheEnabled;
+    private final Cache<String, UserPrincipal> principals;
+    private final Timer loadTimer;
+
+    public CustomUserDetailService(UserRepository userRepository,
+                                   @Value("${security.principal-cache.enabled:true}") boolean cacheEnabled,
+                                   @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                                   @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                                   MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.cacheEnabled = cacheEnabled;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "security.principals");
+        this.loadTimer = Timer.builder("security.principal.load")
+                .description("Time to load a principal from the database on a cache miss")
+                .register(meterRegistry);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByEmail(username).
-                orElseThrow(()-> new OurException("userName/Email not found"));
+        if (!cacheEnabled) {
+            return load(username);
+        }
+        // Unknown emails throw from the loader and are not cached
+        return principals.get(key(username), k -> load(username));
+    }
+
+    // Drops the cached principal once the surrounding transaction commits
+    public void evict(String email) {
+        if (email != null) {
+            String key = key(email);
+            TransactionUtils.afterCommit(() -> principals.invalidate(key));
+        }
+    }
+
+    private UserPrincipal load(String username) {
+        return loadTimer.record(() -> userRepository.findPrincipalByEmail(username).
+                orElseThrow(()-> new OurException("userName/Email not found")));
+    }
+
+    // Emails are unique case-insensitively in MySQL, so differently-cased logins share one entry
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
     }
 }
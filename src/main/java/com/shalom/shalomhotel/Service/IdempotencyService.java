@@ -0,0 +1,227 @@
+package com.shalom.shalomhotel.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.shalom.shalomhotel.Dto.Response;
+import com.shalom.shalomhotel.entity.IdempotencyRecord;
+import com.shalom.shalomhotel.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+// Idempotency-Key support: the first successful response for a key is stored and replayed to retries
+// without running the operation again. Recent keys are served from a bounded in-memory cache;
+// the idempotency_keys table makes them survive restarts and visible to every application node.
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record StoredResponse(String requestHash, int statusCode, Response body, LocalDateTime expiresAt) {
+    }
+
+    // A cached response lives exactly as long as its idempotency_keys row: until the record's expires_at,
+    // however late it was loaded into the cache
+    private static final Expiry<String, StoredResponse> UNTIL_RECORD_EXPIRES = new Expiry<>() {
+        @Override
+        public long expireAfterCreate(String key, StoredResponse value, long currentTime) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, StoredResponse value, long currentTime, long currentDuration) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, StoredResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long remainingNanos(StoredResponse value) {
+            return Math.max(0, Duration.between(LocalDateTime.now(), value.expiresAt()).toNanos());
+        }
+    };
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final Cache<String, StoredResponse> cache;
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${idempotency.in-progress-timeout-seconds:60}") long inProgressTimeoutSeconds,
+                              @Value("${idempotency.cache.max-size:10000}") long maxCacheSize) {
+        this.recordRepository = recordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.inProgressTimeout = Duration.ofSeconds(inProgressTimeoutSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxCacheSize)
+                .expireAfter(UNTIL_RECORD_EXPIRES)
+                .build();
+    }
+
+    // Runs the action once per key. A retry with the same key and request gets the stored response;
+    // the same key with a different request is rejected, as is a retry while the first one is still running.
+    // Only successful responses are kept, so a request that failed may be retried with the same key.
+    public ResponseEntity<Response> execute(String idempotencyKey, String operation, Object request,
+                                            Supplier<ResponseEntity<Response>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, HEADER + " must not be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String keyHash = sha256(operation + "\n" + currentCaller() + "\n" + idempotencyKey);
+        String requestHash = sha256(toJson(request));
+
+        StoredResponse stored = cache.getIfPresent(keyHash);
+        if (stored == null) {
+            stored = loadCompleted(keyHash);
+        }
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+
+        LocalDateTime claimedAt = LocalDateTime.now();
+        if (!claim(keyHash, requestHash, claimedAt)) {
+            stored = loadCompleted(keyHash);
+            if (stored != null) {
+                return replay(stored, requestHash);
+            }
+            return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still being processed");
+        }
+
+        ResponseEntity<Response> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            recordRepository.deleteById(keyHash);
+            throw e;
+        }
+
+        if (result.getStatusCode().is2xxSuccessful()) {
+            complete(keyHash, result);
+            cache.put(keyHash, new StoredResponse(requestHash, result.getStatusCode().value(), result.getBody(),
+                    claimedAt.plus(ttl)));
+        } else {
+            recordRepository.deleteById(keyHash);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    @Transactional
+    public void deleteExpiredKeys() {
+        int deleted = recordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private StoredResponse loadCompleted(String keyHash) {
+        IdempotencyRecord record = recordRepository.findById(keyHash).orElse(null);
+        if (record == null || record.getStatusCode() == null || record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        try {
+            StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                    objectMapper.readValue(record.getResponseBody(), Response.class), record.getExpiresAt());
+            cache.put(keyHash, stored);
+            return stored;
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable stored response for idempotency key {}", keyHash, e);
+            return null;
+        }
+    }
+
+    // Inserts the in-progress marker. The primary key makes exactly one concurrent request win, across nodes.
+    // An expired record, or a marker left behind by a request that never finished, is replaced.
+    private boolean claim(String keyHash, String requestHash, LocalDateTime now) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE key_hash = ? " +
+                        "AND (expires_at < ? OR (status_code IS NULL AND created_at < ?))",
+                keyHash, Timestamp.valueOf(now), Timestamp.valueOf(now.minus(inProgressTimeout)));
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_keys (key_hash, request_hash, created_at, expires_at) " +
+                            "VALUES (?, ?, ?, ?)",
+                    keyHash, requestHash, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void complete(String keyHash, ResponseEntity<Response> result) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET status_code = ?, response_body = ? WHERE key_hash = ?",
+                result.getStatusCode().value(), toJson(result.getBody()), keyHash);
+    }
+
+    private ResponseEntity<Response> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return error(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+        }
+        return ResponseEntity.status(stored.statusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private static ResponseEntity<Response> error(HttpStatus status, String message) {
+        Response response = new Response();
+        response.setMessage(message);
+        return ResponseEntity.status(status).body(response);
+    }
+
+    // Keys are scoped to the caller, so one user can never be served another user's stored response
+    private static String currentCaller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.Dto.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Runs a mutation in its own transaction and retries it when a @Version check fails at flush or commit.
+// Each attempt re-reads fresh state; no row locks are held between attempts.
+@Service
+@Slf4j
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${optimistic-retry.max-attempts:3}") int maxAttempts,
+                                   @Value("${optimistic-retry.backoff-ms:20}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+    }
+
+    public Response execute(String operation, Supplier<Response> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                counter("optimistic.lock.conflicts", operation).increment();
+
+                if (attempt >= maxAttempts) {
+                    counter("optimistic.lock.exhausted", operation).increment();
+                    log.warn("{} gave up after {} conflicting attempts", operation, attempt);
+                    Response response = new Response();
+                    response.setMessage("The record was changed by another request, please try again");
+                    return response;
+                }
+
+                counter("optimistic.lock.retries", operation).increment();
+                if (!backoff(attempt)) {
+                    Response response = new Response();
+                    response.setMessage("Request interrupted, please try again");
+                    return response;
+                }
+            }
+        }
+    }
+
+    // Full jitter: sleep a random time up to backoff * 2^(attempt - 1)
+    private boolean backoff(int attempt) {
+        long ceiling = backoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name).tag("operation", operation).register(meterRegistry);
+    }
+}
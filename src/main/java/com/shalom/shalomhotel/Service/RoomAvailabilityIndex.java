@@ -0,0 +1,294 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.entity.Room;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.repository.RoomRepository;
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory room-night occupancy index.
+// Every room keeps one bit per night (bit 0 = origin day), set while an active booking holds the night.
+// Stays are half-open: a booking occupies [checkInDate, checkOutDate).
+// Local writes are applied as they commit; the whole index is rebuilt from the database on a fixed delay, which
+// picks up writes made by other nodes and moves the origin day forward.
+@Service
+@Slf4j
+public class RoomAvailabilityIndex {
+
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RoomEntry> rooms = new HashMap<>();
+    private final Map<Long, TreeSet<Long>> roomsByType = new HashMap<>();
+
+    // Nights before the origin are in the past and never searched, so they are simply not stored
+    private long originDay = LocalDate.now().minusDays(1).toEpochDay();
+
+    // Writes committed while a rebuild is reading the database, replayed onto the rebuilt maps before the swap so
+    // they are not lost when the read missed them. Null when no rebuild is running; guarded by the lock.
+    private List<Change> pendingChanges;
+
+    // A committed write, applied to a set of maps whose bit 0 is the given origin day
+    private interface Change {
+        void apply(Map<Long, RoomEntry> rooms, Map<Long, TreeSet<Long>> roomsByType, long origin);
+    }
+
+    private static class RoomEntry {
+        Long roomTypeId;
+        Room.RoomStatus status;
+        final BitSet nights = new BitSet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${availability.index.resync-interval-ms:60000}",
+            fixedDelayString = "${availability.index.resync-interval-ms:60000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long origin = LocalDate.now().minusDays(1).toEpochDay();
+        Map<Long, RoomEntry> newRooms = new HashMap<>();
+        Map<Long, TreeSet<Long>> newRoomsByType = new HashMap<>();
+        int stays = 0;
+        boolean loaded = false;
+        try {
+            for (RoomRepository.RoomSlotView slot : roomRepository.findAllRoomSlots()) {
+                RoomEntry entry = new RoomEntry();
+                entry.roomTypeId = slot.getRoomTypeId();
+                entry.status = slot.getStatus();
+                newRooms.put(slot.getId(), entry);
+                newRoomsByType.computeIfAbsent(slot.getRoomTypeId(), k -> new TreeSet<>()).add(slot.getId());
+            }
+
+            for (BookingRepository.StayView stay : bookingRepository.findActiveStays(LocalDate.ofEpochDay(origin))) {
+                RoomEntry entry = newRooms.get(stay.getRoomId());
+                if (entry != null) {
+                    setNights(entry.nights, origin, stay.getCheckInDate(), stay.getCheckOutDate(), true);
+                    stays++;
+                }
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    for (Change change : pendingChanges) {
+                        change.apply(newRooms, newRoomsByType, origin);
+                    }
+                    originDay = origin;
+                    rooms.clear();
+                    rooms.putAll(newRooms);
+                    roomsByType.clear();
+                    roomsByType.putAll(newRoomsByType);
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        // Other nodes' writes may have changed any type since the last resync
+        availabilityCache.invalidateAll();
+        log.info("Room availability index built: {} rooms, {} active stays", newRooms.size(), stays);
+    }
+
+    // ========== QUERIES ==========
+
+    public List<Long> findAvailableRoomIds(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        lock.readLock().lock();
+        try {
+            return availableRoomIds(roomTypeId, checkIn, checkOut);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Free rooms of several types read under one lock, so a multi-room request sees a single consistent snapshot
+    public Map<Long, List<Long>> findAvailableRoomIdsByType(Collection<Long> roomTypeIds, LocalDate checkIn, LocalDate checkOut) {
+        Map<Long, List<Long>> available = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long roomTypeId : roomTypeIds) {
+                available.put(roomTypeId, availableRoomIds(roomTypeId, checkIn, checkOut));
+            }
+            return available;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Free-room count per room type in a single pass over the index
+    public Map<Long, Integer> countAvailableByType(LocalDate checkIn, LocalDate checkOut) {
+        lock.readLock().lock();
+        try {
+            int from = toIndex(checkIn);
+            int to = toIndex(checkOut);
+            Map<Long, Integer> counts = new HashMap<>();
+            for (RoomEntry entry : rooms.values()) {
+                if (entry.status == Room.RoomStatus.AVAILABLE && isFree(entry.nights, from, to)) {
+                    counts.merge(entry.roomTypeId, 1, Integer::sum);
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // For every check-in date in [windowStart, windowEnd - nights], the number of rooms of the type that are
+    // free for the whole stay. One prefix-sum pass per room over the window; no per-date lookups.
+    public int[] countFreeStaysInWindow(Long roomTypeId, LocalDate windowStart, LocalDate windowEnd, int nights) {
+        int windowLength = (int) (windowEnd.toEpochDay() - windowStart.toEpochDay());
+        int candidates = windowLength - nights + 1;
+        if (candidates <= 0) {
+            return new int[0];
+        }
+        int[] counts = new int[candidates];
+
+        lock.readLock().lock();
+        try {
+            TreeSet<Long> ids = roomsByType.get(roomTypeId);
+            if (ids == null) {
+                return counts;
+            }
+            int base = toIndex(windowStart);
+            int[] occupied = new int[windowLength + 1];
+            for (Long id : ids) {
+                RoomEntry entry = rooms.get(id);
+                if (entry.status != Room.RoomStatus.AVAILABLE) {
+                    continue;
+                }
+                for (int i = 0; i < windowLength; i++) {
+                    occupied[i + 1] = occupied[i] + (entry.nights.get(base + i) ? 1 : 0);
+                }
+                for (int d = 0; d < candidates; d++) {
+                    if (occupied[d + nights] == occupied[d]) {
+                        counts[d]++;
+                    }
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== UPDATES (applied after the surrounding transaction commits) ==========
+
+    public void registerRoom(Room room) {
+        Long roomId = room.getId();
+        Long roomTypeId = room.getRoomType() != null ? room.getRoomType().getId() : null;
+        Room.RoomStatus status = room.getStatus();
+        applyAfterCommit((rooms, roomsByType, origin) -> {
+            RoomEntry entry = rooms.computeIfAbsent(roomId, k -> new RoomEntry());
+            if (entry.roomTypeId != null && !entry.roomTypeId.equals(roomTypeId)
+                    && roomsByType.containsKey(entry.roomTypeId)) {
+                roomsByType.get(entry.roomTypeId).remove(roomId);
+            }
+            entry.roomTypeId = roomTypeId;
+            entry.status = status;
+            roomsByType.computeIfAbsent(roomTypeId, k -> new TreeSet<>()).add(roomId);
+        });
+    }
+
+    public void removeRoom(Long roomId) {
+        applyAfterCommit((rooms, roomsByType, origin) -> {
+            RoomEntry entry = rooms.remove(roomId);
+            if (entry != null && roomsByType.containsKey(entry.roomTypeId)) {
+                roomsByType.get(entry.roomTypeId).remove(roomId);
+            }
+        });
+    }
+
+    public void markBooked(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        updateNights(roomId, checkIn, checkOut, true);
+    }
+
+    public void release(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        updateNights(roomId, checkIn, checkOut, false);
+    }
+
+    private void updateNights(Long roomId, LocalDate checkIn, LocalDate checkOut, boolean booked) {
+        applyAfterCommit((rooms, roomsByType, origin) -> {
+            RoomEntry entry = rooms.get(roomId);
+            if (entry != null) {
+                setNights(entry.nights, origin, checkIn, checkOut, booked);
+            }
+        });
+    }
+
+    private void applyAfterCommit(Change change) {
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                change.apply(rooms, roomsByType, originDay);
+                if (pendingChanges != null) {
+                    pendingChanges.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // ========== HELPERS ==========
+
+    // Free AVAILABLE rooms of the type for the stay, in id order; callers hold the read lock
+    private List<Long> availableRoomIds(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        TreeSet<Long> ids = roomsByType.get(roomTypeId);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        int from = toIndex(checkIn);
+        int to = toIndex(checkOut);
+        List<Long> available = new ArrayList<>();
+        for (Long id : ids) {
+            RoomEntry entry = rooms.get(id);
+            if (entry.status == Room.RoomStatus.AVAILABLE && isFree(entry.nights, from, to)) {
+                available.add(id);
+            }
+        }
+        return available;
+    }
+
+    private int toIndex(LocalDate date) {
+        return (int) Math.max(0, date.toEpochDay() - originDay);
+    }
+
+    private static boolean isFree(BitSet nights, int from, int to) {
+        int next = nights.nextSetBit(from);
+        return next == -1 || next >= to;
+    }
+
+    private static void setNights(BitSet nights, long origin, LocalDate checkIn, LocalDate checkOut, boolean value) {
+        int from = (int) Math.max(0, checkIn.toEpochDay() - origin);
+        int to = (int) Math.max(0, checkOut.toEpochDay() - origin);
+        if (to > from) {
+            nights.set(from, to, value);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.entity.RoomTypeInventory;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.repository.RoomRepository;
+import com.shalom.shalomhotel.repository.RoomTypeInventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Maintains the room_type_inventory read model: capacity and sold count per room type and night.
+// Writes join the caller's transaction so the read model commits or rolls back with the booking.
+@Service
+@Slf4j
+public class RoomInventoryService {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_ROW =
+            "INSERT INTO room_type_inventory (room_type_id, stay_date, capacity, sold) VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_ROW =
+            INSERT_ROW + " ON DUPLICATE KEY UPDATE capacity = VALUES(capacity), sold = VALUES(sold)";
+
+    @Autowired
+    private RoomTypeInventoryRepository inventoryRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.horizon-days:365}")
+    private int horizonDays;
+
+    @Transactional
+    public void recordStay(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        recordStays(roomTypeId, checkIn, checkOut, 1);
+    }
+
+    // Several rooms of one type sold for the same stay, e.g. by a group booking
+    @Transactional
+    public void recordStays(Long roomTypeId, LocalDate checkIn, LocalDate checkOut, int rooms) {
+        ensureRows(roomTypeId, checkIn, checkOut);
+        inventoryRepository.adjustSold(roomTypeId, checkIn, checkOut, rooms);
+    }
+
+    @Transactional
+    public void releaseStay(Long roomTypeId, LocalDate checkIn, LocalDate checkOut) {
+        inventoryRepository.adjustSold(roomTypeId, checkIn, checkOut, -1);
+    }
+
+    // After a room was added to, moved between or removed from types: sets tonight onwards to the type's current
+    // room count, first creating the horizon's rows if the type has none yet (e.g. its first room)
+    @Transactional
+    public void syncCapacity(Long roomTypeId) {
+        LocalDate today = LocalDate.now();
+        ensureRows(roomTypeId, today, today.plusDays(horizonDays));
+        inventoryRepository.setCapacity(roomTypeId, today, (int) roomRepository.countByRoomTypeId(roomTypeId));
+    }
+
+    public List<RoomTypeInventory> getRange(Long roomTypeId, LocalDate fromDate, LocalDate toDate) {
+        return inventoryRepository.findRange(roomTypeId, fromDate, toDate);
+    }
+
+    public Map<Long, Integer> countAvailableByType(LocalDate checkIn, LocalDate checkOut) {
+        // Every booking creates the rows of its nights, so a night without a row has nothing sold:
+        // each type starts at its room count and the nights that have rows can only lower it
+        Map<Long, Integer> counts = new HashMap<>();
+        for (RoomRepository.RoomSlotView slot : roomRepository.findAllRoomSlots()) {
+            counts.merge(slot.getRoomTypeId(), 1, Integer::sum);
+        }
+
+        long nights = checkOut.toEpochDay() - checkIn.toEpochDay();
+        for (RoomTypeInventoryRepository.TypeAvailabilityView row : inventoryRepository.findMinAvailableGroupedByType(checkIn, checkOut)) {
+            int available = Math.max(0, row.getAvailableCount().intValue());
+            if (row.getNightCount() < nights) {
+                available = Math.min(available, counts.getOrDefault(row.getRoomTypeId(), 0));
+            }
+            counts.put(row.getRoomTypeId(), available);
+        }
+        return counts;
+    }
+
+    // The count runs in its own transaction: sharing one with the rebuild would fix the rebuild's read snapshot
+    // before it has taken its locks
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (inventoryRepository.count() == 0) {
+            transactionTemplate.executeWithoutResult(status -> rebuild());
+        }
+    }
+
+    // Reconstructs the table from rooms and active bookings for tonight up to the horizon, in place.
+    // Every current row is locked before anything is read: bookings that already changed the inventory have
+    // committed by then, and later ones wait for the rebuild and apply their change on top of it. The rooms and
+    // stays are read after the locks are taken, so no booking's sold increment is lost or counted twice.
+    @Scheduled(cron = "${inventory.rebuild-cron:0 30 3 * * *}")
+    @Transactional
+    public int rebuild() {
+        LocalDate today = LocalDate.now();
+        Date tonight = Date.valueOf(today);
+        Date horizon = Date.valueOf(today.plusDays(horizonDays));
+
+        jdbcTemplate.update("DELETE FROM room_type_inventory WHERE stay_date < ?", tonight);
+        jdbcTemplate.queryForList("SELECT id FROM room_type_inventory WHERE stay_date >= ? FOR UPDATE", Long.class, tonight);
+
+        Map<Long, Integer> capacityByType = new HashMap<>();
+        for (RoomRepository.RoomSlotView slot : roomRepository.findAllRoomSlots()) {
+            capacityByType.merge(slot.getRoomTypeId(), 1, Integer::sum);
+        }
+
+        Map<Long, int[]> soldByType = new HashMap<>();
+        for (Long roomTypeId : capacityByType.keySet()) {
+            soldByType.put(roomTypeId, new int[horizonDays]);
+        }
+        for (BookingRepository.StayView stay : bookingRepository.findActiveStays(today)) {
+            int[] sold = soldByType.get(stay.getRoomTypeId());
+            if (sold == null) {
+                continue;
+            }
+            int from = (int) Math.max(0, stay.getCheckInDate().toEpochDay() - today.toEpochDay());
+            int to = (int) Math.min(horizonDays, stay.getCheckOutDate().toEpochDay() - today.toEpochDay());
+            for (int day = from; day < to; day++) {
+                sold[day]++;
+            }
+        }
+
+        // Types that lost all their rooms keep their rows, emptied; nights past the horizon keep their counts
+        jdbcTemplate.update("UPDATE room_type_inventory SET capacity = 0, sold = 0 WHERE stay_date >= ? AND stay_date < ?",
+                tonight, horizon);
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        int rows = 0;
+        for (Map.Entry<Long, int[]> entry : soldByType.entrySet()) {
+            int capacity = capacityByType.get(entry.getKey());
+            int[] sold = entry.getValue();
+            for (int day = 0; day < horizonDays; day++) {
+                batch.add(new Object[]{entry.getKey(), Date.valueOf(today.plusDays(day)), capacity, sold[day]});
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    rows += insertBatch(UPSERT_ROW, batch);
+                }
+            }
+        }
+        rows += insertBatch(UPSERT_ROW, batch);
+
+        log.info("Room type inventory rebuilt: {} rows for {} room types", rows, soldByType.size());
+        return rows;
+    }
+
+    // Creates missing nights (e.g. beyond the last rebuild horizon) with the type's current room count.
+    // Two bookings may both find the same night missing; INSERT IGNORE lets the second one use the first one's row
+    // instead of failing on the unique key, and adjustSold then counts both.
+    private void ensureRows(Long roomTypeId, LocalDate fromDate, LocalDate toDate) {
+        Set<LocalDate> existing = new HashSet<>(inventoryRepository.findStayDates(roomTypeId, fromDate, toDate));
+        int nights = (int) (toDate.toEpochDay() - fromDate.toEpochDay());
+        if (existing.size() == nights) {
+            return;
+        }
+
+        int capacity = (int) roomRepository.countByRoomTypeId(roomTypeId);
+        List<Object[]> batch = new ArrayList<>();
+        for (LocalDate date = fromDate; date.isBefore(toDate); date = date.plusDays(1)) {
+            if (!existing.contains(date)) {
+                batch.add(new Object[]{roomTypeId, Date.valueOf(date), capacity, 0});
+            }
+        }
+        insertBatch(INSERT_ROW.replace("INSERT INTO", "INSERT IGNORE INTO"), batch);
+    }
+
+    private int insertBatch(String sql, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+}
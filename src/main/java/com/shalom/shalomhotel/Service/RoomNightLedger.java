@@ -0,0 +1,98 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.entity.Booking;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.repository.RoomNightRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Room-night ledger: each booked night is a row keyed by (room_id, night).
+// claim() fails with a DuplicateKeyException when any night is already taken, so overbooking is
+// rejected by the database itself instead of by a check-then-insert race.
+@Service
+@Slf4j
+public class RoomNightLedger {
+
+    private static final String INSERT_NIGHT =
+            "INSERT INTO room_nights (room_id, night, booking_id) VALUES (?, ?, ?)";
+
+    @Autowired
+    private RoomNightRepository roomNightRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Batched insert of every night of the stay; joins the booking's transaction
+    @Transactional
+    public void claim(Long roomId, Long bookingId, LocalDate checkIn, LocalDate checkOut) {
+        jdbcTemplate.batchUpdate(INSERT_NIGHT, nightRows(roomId, bookingId, checkIn, checkOut));
+    }
+
+    // All stays of a group booking in one batch
+    @Transactional
+    public void claimAll(List<Booking> bookings) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Booking booking : bookings) {
+            rows.addAll(nightRows(booking.getRoom().getId(), booking.getId(),
+                    booking.getCheckInDate(), booking.getCheckOutDate()));
+        }
+        jdbcTemplate.batchUpdate(INSERT_NIGHT, rows);
+    }
+
+    @Transactional
+    public void releaseBooking(Long bookingId) {
+        roomNightRepository.deleteByBookingId(bookingId);
+    }
+
+    @Transactional
+    public void releaseBookings(Collection<Long> bookingIds) {
+        roomNightRepository.deleteByBookingIdIn(bookingIds);
+    }
+
+    public boolean isFree(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        return !roomNightRepository.existsNightInRange(roomId, checkIn, checkOut);
+    }
+
+    // Fills an empty ledger from the active bookings that predate it
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (roomNightRepository.count() > 0) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (BookingRepository.StayView stay : bookingRepository.findActiveStays(today)) {
+            LocalDate from = stay.getCheckInDate().isBefore(today) ? today : stay.getCheckInDate();
+            rows.addAll(nightRows(stay.getRoomId(), stay.getId(), from, stay.getCheckOutDate()));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // Older bookings were not protected by the ledger and may overlap; keep the first claim of a night
+        jdbcTemplate.batchUpdate(INSERT_NIGHT.replace("INSERT INTO", "INSERT IGNORE INTO"), rows);
+        log.info("Room night ledger backfilled with {} nights", rows.size());
+    }
+
+    private static List<Object[]> nightRows(Long roomId, Long bookingId, LocalDate checkIn, LocalDate checkOut) {
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+            rows.add(new Object[]{roomId, Date.valueOf(night), bookingId});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,99 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Striped in-JVM locks that serialize reservations of the same room while leaving other rooms untouched.
+// The database guard (SELECT ... FOR UPDATE on the room row) covers other application nodes.
+@Service
+public class RoomReservationLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long waitMillis;
+    private final long groupWaitMillis;
+
+    public RoomReservationLocks(@Value("${booking.lock.stripes:256}") int stripeCount,
+                                @Value("${booking.lock.wait-ms:5000}") long waitMillis,
+                                @Value("${booking.lock.group-wait-ms:250}") long groupWaitMillis) {
+        // Round up to a power of two so the stripe can be picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.waitMillis = waitMillis;
+        this.groupWaitMillis = groupWaitMillis;
+    }
+
+    // Waits up to the configured time for the room's stripe; call it before opening a transaction
+    public boolean acquire(Long roomId) {
+        try {
+            return stripeFor(roomId).tryLock(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Takes the room's stripe only if it is free right now
+    public boolean tryAcquire(Long roomId) {
+        return stripeFor(roomId).tryLock();
+    }
+
+    // Takes the stripes of several rooms in stripe order, so two multi-room requests cannot deadlock on each other.
+    // All stripes are held until the current transaction completes; on timeout none are kept.
+    // Callers are already inside that transaction, holding a connection, so each stripe is waited on only briefly.
+    public boolean acquireAllUntilCompletion(Collection<Long> roomIds) {
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (Long roomId : roomIds) {
+            stripeIndexes.add(stripeIndex(roomId));
+        }
+
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (Integer index : stripeIndexes) {
+                ReentrantLock stripe = stripes[index];
+                if (!stripe.tryLock(groupWaitMillis, TimeUnit.MILLISECONDS)) {
+                    held.forEach(ReentrantLock::unlock);
+                    return false;
+                }
+                held.add(stripe);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            held.forEach(ReentrantLock::unlock);
+            return false;
+        }
+
+        TransactionUtils.afterCompletion(() -> held.forEach(ReentrantLock::unlock));
+        return true;
+    }
+
+    public void release(Long roomId) {
+        stripeFor(roomId).unlock();
+    }
+
+    // Keeps the stripe until the current transaction has committed or rolled back,
+    // so no other request can check the room before this booking is visible
+    public void releaseAfterCompletion(Long roomId) {
+        TransactionUtils.afterCompletion(() -> release(roomId));
+    }
+
+    private ReentrantLock stripeFor(Long roomId) {
+        return stripes[stripeIndex(roomId)];
+    }
+
+    private int stripeIndex(Long roomId) {
+        int h = roomId.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,45 @@
+package com.shalom.shalomhotel.Service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.shalom.shalomhotel.repository.UserRepository;
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+// Revocation check for stateless JWTs: a token is honoured only while its "ver" claim matches the user's
+// token_version. Versions are cached briefly, so most requests never reach the database; other nodes
+// see a bump (or a deleted user) once their entry expires.
+@Service
+public class TokenVersionService {
+
+    // Cached for users that no longer exist, so their tokens keep failing without a query each time
+    private static final long NO_USER = -1L;
+
+    private final LoadingCache<Long, Long> versions;
+
+    public TokenVersionService(UserRepository userRepository,
+                               @Value("${jwt.version-cache.ttl-seconds:30}") long ttlSeconds,
+                               @Value("${jwt.version-cache.max-size:100000}") long maxSize,
+                               MeterRegistry meterRegistry) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(userId -> userRepository.findTokenVersionById(userId).orElse(NO_USER));
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "jwt.token-versions");
+    }
+
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        return versions.get(userId) == tokenVersion;
+    }
+
+    // Call after bumping or deleting the user in the current transaction
+    public void evict(Long userId) {
+        TransactionUtils.afterCommit(() -> versions.invalidate(userId));
+    }
+}
@@ -0,0 +1,179 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.Dto.SuggestionDTO;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.repository.RoomRepository;
+import com.shalom.shalomhotel.repository.UserRepository;
+import com.shalom.shalomhotel.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+// Prefix autocomplete over confirmation codes, guest emails and room numbers.
+// Each field is a sorted map from the lower-cased value to the value as stored, so the first K matches of a
+// prefix are the first K entries of one sub-map: O(log n + K), with no locking on the read path.
+// Local writes are applied as they commit; the maps are rebuilt from the database on a fixed delay, which picks up
+// codes, emails and room numbers changed through other nodes, and swapped in whole.
+@Service
+@Slf4j
+public class TypeaheadIndex {
+
+    public static final String CODE = "code";
+    public static final String EMAIL = "email";
+    public static final String ROOM = "room";
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoomRepository roomRepository;
+
+    private volatile Entries entries = new Entries();
+
+    // Writes committed while a rebuild is reading the database, replayed onto the new maps before the swap so they
+    // are not lost when the read missed them. Null when no rebuild is running; guarded by this.
+    private List<Consumer<Entries>> pendingChanges;
+
+    private static final class Entries {
+        final ConcurrentSkipListMap<String, String> codes = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<String, String> emails = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<String, String> roomNumbers = new ConcurrentSkipListMap<>();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${booking.autocomplete.resync-interval-ms:300000}",
+            fixedDelayString = "${booking.autocomplete.resync-interval-ms:300000}")
+    public void rebuild() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        Entries loaded = null;
+        try {
+            Entries next = new Entries();
+            load(next.codes, bookingRepository.findAllConfirmationCodes());
+            load(next.emails, userRepository.findAllEmails());
+            load(next.roomNumbers, roomRepository.findAllRoomNumbers());
+            loaded = next;
+        } finally {
+            synchronized (this) {
+                if (loaded != null) {
+                    for (Consumer<Entries> change : pendingChanges) {
+                        change.accept(loaded);
+                    }
+                    entries = loaded;
+                }
+                pendingChanges = null;
+            }
+        }
+        log.info("Typeahead index built: {} codes, {} emails, {} room numbers",
+                loaded.codes.size(), loaded.emails.size(), loaded.roomNumbers.size());
+    }
+
+    // Top matches of one field, or of every field when field is null, in sorted order
+    public List<SuggestionDTO> suggest(String prefix, String field, int limit) {
+        List<SuggestionDTO> suggestions = new ArrayList<>();
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return suggestions;
+        }
+        Entries current = entries;
+        if (field == null || field.equals(CODE)) {
+            collect(current.codes, CODE, key, limit, suggestions);
+        }
+        if (field == null || field.equals(EMAIL)) {
+            collect(current.emails, EMAIL, key, limit, suggestions);
+        }
+        if (field == null || field.equals(ROOM)) {
+            collect(current.roomNumbers, ROOM, key, limit, suggestions);
+        }
+        return suggestions;
+    }
+
+    // ========== UPDATES (applied after the surrounding transaction commits) ==========
+
+    public void addCode(String code) {
+        applyAfterCommit(current -> put(current.codes, code));
+    }
+
+    public void removeCodes(Collection<String> removed) {
+        List<String> keys = removed.stream().map(TypeaheadIndex::normalize).toList();
+        applyAfterCommit(current -> keys.forEach(current.codes::remove));
+    }
+
+    public void replaceEmail(String oldEmail, String newEmail) {
+        applyAfterCommit(current -> {
+            if (oldEmail != null) {
+                current.emails.remove(normalize(oldEmail));
+            }
+            put(current.emails, newEmail);
+        });
+    }
+
+    public void removeEmail(String email) {
+        applyAfterCommit(current -> current.emails.remove(normalize(email)));
+    }
+
+    public void replaceRoomNumber(String oldRoomNumber, String newRoomNumber) {
+        applyAfterCommit(current -> {
+            if (oldRoomNumber != null) {
+                current.roomNumbers.remove(normalize(oldRoomNumber));
+            }
+            put(current.roomNumbers, newRoomNumber);
+        });
+    }
+
+    public void removeRoomNumber(String roomNumber) {
+        applyAfterCommit(current -> current.roomNumbers.remove(normalize(roomNumber)));
+    }
+
+    private void applyAfterCommit(Consumer<Entries> change) {
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                change.accept(entries);
+                if (pendingChanges != null) {
+                    pendingChanges.add(change);
+                }
+            }
+        });
+    }
+
+    // ========== HELPERS ==========
+
+    private static void collect(ConcurrentSkipListMap<String, String> values, String field, String prefix,
+                                int limit, List<SuggestionDTO> into) {
+        int taken = 0;
+        for (Map.Entry<String, String> entry : values.tailMap(prefix).entrySet()) {
+            if (taken == limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            into.add(new SuggestionDTO(field, entry.getValue()));
+            taken++;
+        }
+    }
+
+    private static void load(ConcurrentSkipListMap<String, String> values, List<String> source) {
+        source.forEach(value -> put(values, value));
+    }
+
+    private static void put(ConcurrentSkipListMap<String, String> values, String value) {
+        if (value != null && !value.isBlank()) {
+            values.put(normalize(value), value);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
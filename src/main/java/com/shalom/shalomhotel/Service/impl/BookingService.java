@@ -1,6 +1,16 @@
 package com.shalom.shalomhotel.Service.impl;
 
 import com.shalom.shalomhotel.Dto.*;
+import com.shalom.shalomhotel.Service.AvailabilityCache;
+import com.shalom.shalomhotel.Service.BookingHoldQueue;
+import com.shalom.shalomhotel.Service.BookingSearchIndex;
+import com.shalom.shalomhotel.Service.ConfirmationCodeAllocator;
+import com.shalom.shalomhotel.Service.OptimisticRetryExecutor;
+import com.shalom.shalomhotel.Service.RoomAvailabilityIndex;
+import com.shalom.shalomhotel.Service.RoomInventoryService;
+import com.shalom.shalomhotel.Service.RoomNightLedger;
+import com.shalom.shalomhotel.Service.RoomReservationLocks;
+import com.shalom.shalomhotel.Service.TypeaheadIndex;
 import com.shalom.shalomhotel.Service.interfac.IBookingService;
 import com.shalom.shalomhotel.entity.*;
 import com.shalom.shalomhotel.Exception.OurException;
@@ -8,15 +18,37 @@ import com.shalom.shalomhotel.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 @Service
 @Slf4j
@@ -31,18 +63,85 @@ public class BookingService implements IBookingService {
     private UserRepository userRepository;
     @Autowired
     private RoomTypeRepository roomTypeRepository;
+    @Autowired
+    private RoomAvailabilityIndex availabilityIndex;
+    @Autowired
+    private RoomInventoryService inventoryService;
+    @Autowired
+    private AvailabilityCache availabilityCache;
+    @Autowired
+    private RoomReservationLocks roomLocks;
+    @Autowired
+    private RoomNightLedger roomNightLedger;
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingHoldQueue holdQueue;
+    @Autowired
+    private ConfirmationCodeAllocator codeAllocator;
+    @Autowired
+    private BookingSearchIndex searchIndex;
+    @Autowired
+    private TypeaheadIndex typeaheadIndex;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${booking.group.max-rooms:50}")
+    private int maxGroupRooms;
+
+    @Value("${booking.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${booking.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${booking.autocomplete.max-results:50}")
+    private int maxSuggestions;
+
+    @Value("${booking.hold.minutes:0}")
+    private long holdMinutes;
+
+    @Value("${booking.hold.release-batch-size:200}")
+    private int holdReleaseBatchSize;
+
+    private static final String INSERT_BOOKING =
+            "INSERT INTO bookings (booking_confirmation_code, room_id, user_id, check_in_date, check_out_date, " +
+            "number_of_guests, num_of_adults, num_of_children, total_price, booking_status, booking_date, " +
+            "special_requests, group_code, hold_expires_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
 
 
     private long calculateNights(LocalDate checkIn, LocalDate checkOut) {
         if (checkIn == null || checkOut == null) {
             return 0;
         }
-        return Period.between(checkIn, checkOut).getDays();
+        return ChronoUnit.DAYS.between(checkIn, checkOut);
     }
 
     @Override
-    @Transactional
     public Response createBooking(BookingRequestDTO bookingRequest) {
+        Long roomId = bookingRequest.getRoomId();
+        if (roomId == null) {
+            return transactionTemplate.execute(status -> doCreateBooking(bookingRequest, status));
+        }
+
+        // Queue for the room's stripe before a transaction, and with it a pooled connection, is opened,
+        // so a burst on one room cannot drain the connection pool while it waits
+        if (!roomLocks.acquire(roomId)) {
+            Response response = new Response();
+            response.setMessage("Room is being booked by another request, please try again");
+            return response;
+        }
+        try {
+            return transactionTemplate.execute(status -> doCreateBooking(bookingRequest, status));
+        } finally {
+            // Only after commit or rollback, so the next request for this room sees the booking
+            roomLocks.release(roomId);
+        }
+    }
+
+    private Response doCreateBooking(BookingRequestDTO bookingRequest, TransactionStatus status) {
         Response response = new Response();
 
         try {
@@ -89,7 +188,8 @@ public class BookingService implements IBookingService {
             Room room;
 
             if (bookingRequest.getRoomId() != null) {
-                room = roomRepository.findById(bookingRequest.getRoomId())
+                // The caller holds the room's stripe; the row lock guards against other nodes
+                room = roomRepository.findByIdForUpdate(bookingRequest.getRoomId())
                         .orElseThrow(() -> new OurException("Room not found with ID: " + bookingRequest.getRoomId()));
 
                 if (!isRoomAvailableForDates(room, bookingRequest.getCheckInDate(), bookingRequest.getCheckOutDate())) {
@@ -137,26 +237,262 @@ public class BookingService implements IBookingService {
             booking.setTotalPrice(finalTotalPrice);
             booking.setBookingStatus(Booking.BookingStatus.PENDING);
             booking.setSpecialRequests(bookingRequest.getSpecialRequests());
+            booking.setHoldExpiresAt(holdExpiry());
+            booking.setBookingConfirmationCode(codeAllocator.nextBookingCode());
 
             Booking savedBooking = bookingRepository.save(booking);
-
+            holdQueue.schedule(savedBooking.getId(), savedBooking.getHoldExpiresAt());
+            searchIndex.indexBooking(savedBooking);
+            typeaheadIndex.addCode(savedBooking.getBookingConfirmationCode());
+            roomNightLedger.claim(room.getId(), savedBooking.getId(),
+                    savedBooking.getCheckInDate(), savedBooking.getCheckOutDate());
 
             room.setStatus(Room.RoomStatus.RESERVED);
             roomRepository.save(room);
 
+            inventoryService.recordStay(room.getRoomType().getId(), savedBooking.getCheckInDate(), savedBooking.getCheckOutDate());
+            availabilityIndex.markBooked(room.getId(), savedBooking.getCheckInDate(), savedBooking.getCheckOutDate());
+            availabilityIndex.registerRoom(room);
+            availabilityCache.invalidateType(room.getRoomType().getId());
+
             response.setMessage("Booking created successfully");
             response.setBooking(mapToBookingDTO(savedBooking));
 
+        } catch (DuplicateKeyException e) {
+            // Another booking claimed one of these nights first; undo everything written so far
+            status.setRollbackOnly();
+            response.setMessage("Room is no longer available for the selected dates");
         } catch (OurException e) {
+            status.setRollbackOnly();
             response.setMessage(e.getMessage());
         } catch (Exception e) {
-
+            // A later step (ledger, inventory, index) failed; the booking must not commit without it
+            status.setRollbackOnly();
+            log.error("Booking creation failed", e);
             response.setMessage("Failed to create booking");
         }
 
         return response;
     }
 
+    // Books every room of a group for one stay, all or nothing. Rooms are assigned from a single snapshot of the
+    // availability index, then locked, inserted with JDBC batches and claimed in the room night ledger;
+    // a failure at any step rolls back the whole group.
+    @Override
+    @Transactional
+    public Response createBookings(GroupBookingRequestDTO groupRequest) {
+        Response response = new Response();
+
+        try {
+            List<BookingRequestDTO> items = groupRequest.getRooms();
+
+            if (groupRequest.getUserId() == null) {
+                response.setMessage("User ID is required");
+                return response;
+            }
+
+            if (items == null || items.isEmpty()) {
+                response.setMessage("At least one room is required");
+                return response;
+            }
+
+            if (items.size() > maxGroupRooms) {
+                response.setMessage("A group booking can contain at most " + maxGroupRooms + " rooms");
+                return response;
+            }
+
+            LocalDate checkIn = groupRequest.getCheckInDate();
+            LocalDate checkOut = groupRequest.getCheckOutDate();
+            if (checkIn == null || checkOut == null) {
+                response.setMessage("Check-in and check-out dates are required");
+                return response;
+            }
+
+            if (checkIn.isBefore(LocalDate.now())) {
+                response.setMessage("Check-in date cannot be in the past");
+                return response;
+            }
+
+            if (!checkOut.isAfter(checkIn)) {
+                response.setMessage("Check-out date must be after check-in date");
+                return response;
+            }
+
+            User user = userRepository.findById(groupRequest.getUserId())
+                    .orElseThrow(() -> new OurException("User not found"));
+
+            // Resolve the room type of every entry: rooms asked for by id through their row, the rest directly
+            Set<Long> requestedRoomIds = new HashSet<>();
+            for (BookingRequestDTO item : items) {
+                if (item.getRoomId() != null && !requestedRoomIds.add(item.getRoomId())) {
+                    throw new OurException("Room " + item.getRoomId() + " is requested more than once");
+                }
+                if (item.getRoomId() == null && item.getRoomTypeId() == null) {
+                    throw new OurException("Either Room ID or Room Type ID is required for every room");
+                }
+                Integer guests = calculateTotalGuests(item);
+                if (guests == null || guests <= 0) {
+                    throw new OurException("Valid number of guests is required for every room");
+                }
+            }
+
+            Map<Long, Room> requestedRooms = roomRepository.findAllById(requestedRoomIds).stream()
+                    .collect(Collectors.toMap(Room::getId, room -> room));
+
+            Long[] itemTypeIds = new Long[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                BookingRequestDTO item = items.get(i);
+                if (item.getRoomId() != null) {
+                    Room room = requestedRooms.get(item.getRoomId());
+                    if (room == null) {
+                        throw new OurException("Room not found with ID: " + item.getRoomId());
+                    }
+                    itemTypeIds[i] = room.getRoomType().getId();
+                } else {
+                    itemTypeIds[i] = item.getRoomTypeId();
+                }
+            }
+
+            Set<Long> typeIds = new HashSet<>(Arrays.asList(itemTypeIds));
+            Map<Long, RoomType> roomTypes = roomTypeRepository.findAllById(typeIds).stream()
+                    .collect(Collectors.toMap(RoomType::getId, roomType -> roomType));
+
+            for (int i = 0; i < items.size(); i++) {
+                RoomType roomType = roomTypes.get(itemTypeIds[i]);
+                if (roomType == null) {
+                    throw new OurException("Room type not found with ID: " + itemTypeIds[i]);
+                }
+                Integer guests = calculateTotalGuests(items.get(i));
+                if (guests > roomType.getMaxCapacity()) {
+                    throw new OurException("Number of guests (" + guests + ") exceeds " + roomType.getTypeName() +
+                            " capacity (" + roomType.getMaxCapacity() + ")");
+                }
+            }
+
+            // One snapshot for the whole group, lowest room ids first; rooms asked for by id are taken out first,
+            // so an entry by type never grabs a room another entry named explicitly
+            Map<Long, Set<Long>> freeRooms = new HashMap<>();
+            availabilityIndex.findAvailableRoomIdsByType(typeIds, checkIn, checkOut)
+                    .forEach((typeId, ids) -> freeRooms.put(typeId, new LinkedHashSet<>(ids)));
+            // The index only offers AVAILABLE rooms; rooms still being cleaned are bookable too, after them,
+            // exactly as for a single booking
+            for (Long typeId : typeIds) {
+                Set<Long> free = freeRooms.computeIfAbsent(typeId, k -> new LinkedHashSet<>());
+                for (Long roomId : roomRepository.findIdsByRoomTypeIdAndStatus(typeId, Room.RoomStatus.CLEANING)) {
+                    if (roomNightLedger.isFree(roomId, checkIn, checkOut)) {
+                        free.add(roomId);
+                    }
+                }
+            }
+
+            Long[] assignedRoomIds = new Long[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                Long roomId = items.get(i).getRoomId();
+                if (roomId != null) {
+                    if (!freeRooms.get(itemTypeIds[i]).remove(roomId)) {
+                        throw new OurException("Room " + requestedRooms.get(roomId).getRoomNumber() +
+                                " is not available for the selected dates");
+                    }
+                    assignedRoomIds[i] = roomId;
+                }
+            }
+            for (int i = 0; i < items.size(); i++) {
+                if (assignedRoomIds[i] == null) {
+                    Iterator<Long> candidates = freeRooms.get(itemTypeIds[i]).iterator();
+                    if (!candidates.hasNext()) {
+                        throw new OurException("Not enough available " + roomTypes.get(itemTypeIds[i]).getTypeName() +
+                                " rooms for the selected dates");
+                    }
+                    assignedRoomIds[i] = candidates.next();
+                    candidates.remove();
+                }
+            }
+
+            List<Long> roomIds = Arrays.asList(assignedRoomIds);
+            if (!roomLocks.acquireAllUntilCompletion(roomIds)) {
+                response.setMessage("Rooms are being booked by another request, please try again");
+                return response;
+            }
+
+            Map<Long, Room> lockedRooms = roomRepository.findAllByIdForUpdate(roomIds).stream()
+                    .collect(Collectors.toMap(Room::getId, room -> room));
+            for (Long roomId : roomIds) {
+                Room room = lockedRooms.get(roomId);
+                if (room == null || (room.getStatus() != Room.RoomStatus.AVAILABLE &&
+                        room.getStatus() != Room.RoomStatus.CLEANING)) {
+                    throw new OurException("One or more rooms are no longer available for the selected dates");
+                }
+            }
+
+            long nights = calculateNights(checkIn, checkOut);
+            if (nights == 0) {
+                nights = 1;
+            }
+
+            String groupCode = codeAllocator.nextGroupCode();
+            Timestamp bookingDate = Timestamp.valueOf(LocalDateTime.now());
+            LocalDateTime holdExpiresAt = holdExpiry();
+            Timestamp holdExpiresAtValue = holdExpiresAt != null ? Timestamp.valueOf(holdExpiresAt) : null;
+            List<Object[]> rows = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                BookingRequestDTO item = items.get(i);
+                Room room = lockedRooms.get(assignedRoomIds[i]);
+                BigDecimal totalPrice = item.getTotalPrice() != null
+                        ? item.getTotalPrice()
+                        : roomTypes.get(itemTypeIds[i]).getPricePerNight().multiply(BigDecimal.valueOf(nights));
+                String specialRequests = item.getSpecialRequests() != null
+                        ? item.getSpecialRequests()
+                        : groupRequest.getSpecialRequests();
+
+                rows.add(new Object[]{codeAllocator.nextBookingCode(), room.getId(), user.getId(),
+                        Date.valueOf(checkIn), Date.valueOf(checkOut), calculateTotalGuests(item),
+                        item.getNumOfAdults(), item.getNumOfChildren(), totalPrice,
+                        Booking.BookingStatus.PENDING.name(), bookingDate, specialRequests, groupCode,
+                        holdExpiresAtValue});
+            }
+            jdbcTemplate.batchUpdate(INSERT_BOOKING, rows);
+
+            List<Booking> bookings = bookingRepository.findByGroupCodeOrderById(groupCode);
+            roomNightLedger.claimAll(bookings);
+            for (Booking booking : bookings) {
+                holdQueue.schedule(booking.getId(), holdExpiresAt);
+                searchIndex.indexBooking(booking);
+                typeaheadIndex.addCode(booking.getBookingConfirmationCode());
+            }
+
+            Map<Long, Integer> roomsPerType = new HashMap<>();
+            for (Room room : lockedRooms.values()) {
+                room.setStatus(Room.RoomStatus.RESERVED);
+                roomsPerType.merge(room.getRoomType().getId(), 1, Integer::sum);
+                availabilityIndex.markBooked(room.getId(), checkIn, checkOut);
+                availabilityIndex.registerRoom(room);
+            }
+            roomsPerType.forEach((typeId, count) -> {
+                inventoryService.recordStays(typeId, checkIn, checkOut, count);
+                availabilityCache.invalidateType(typeId);
+            });
+
+            response.setMessage("Group booking created successfully");
+            response.setGroupCode(groupCode);
+            response.setBookingList(bookings.stream()
+                    .map(this::mapToBookingDTO)
+                    .collect(Collectors.toList()));
+
+        } catch (DuplicateKeyException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            response.setMessage("One or more rooms are no longer available for the selected dates");
+        } catch (OurException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            response.setMessage(e.getMessage());
+        } catch (Exception e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            log.error("Group booking failed", e);
+            response.setMessage("Failed to create group booking");
+        }
+
+        return response;
+    }
+
     private Integer calculateTotalGuests(BookingRequestDTO bookingRequest) {
         if (bookingRequest.getNumberOfGuests() != null) {
             return bookingRequest.getNumberOfGuests();
@@ -179,36 +515,49 @@ public class BookingService implements IBookingService {
         }
 
 
-        List<Booking> existingBookings = bookingRepository.findByRoomIdAndBookingStatusNotIn(
-                room.getId(),
-                Arrays.asList(Booking.BookingStatus.CANCELLED, Booking.BookingStatus.CHECKED_OUT)
-        );
+        // Index-only lookup on the room night ledger
+        return roomNightLedger.isFree(room.getId(), checkIn, checkOut);
+    }
 
-        for (Booking booking : existingBookings) {
+    // Picks the first free room of the type that can be locked, in the availability index's id order.
+    // Candidates whose stripe is busy are skipped rather than waited on; the chosen room stays locked
+    // (stripe and row) until the transaction completes.
+    private Room findAvailableRoomByType(BookingRequestDTO bookingRequest, LocalDate checkIn, LocalDate checkOut) {
 
-            if (checkIn.isBefore(booking.getCheckOutDate()) &&
-                    checkOut.isAfter(booking.getCheckInDate())) {
+        RoomType roomType = roomTypeRepository.findById(bookingRequest.getRoomTypeId())
+                .orElseThrow(() -> new OurException("Room type not found"));
 
-                return false;
-            }
+        Integer numberOfGuests = calculateTotalGuests(bookingRequest);
+        if (numberOfGuests == null || numberOfGuests > roomType.getMaxCapacity()) {
+            return null;
         }
 
-        return true;
+        // The index only offers AVAILABLE rooms; rooms still being cleaned are bookable too, after them
+        Set<Long> candidates = new LinkedHashSet<>(availabilityIndex.findAvailableRoomIds(roomType.getId(), checkIn, checkOut));
+        candidates.addAll(roomRepository.findIdsByRoomTypeIdAndStatus(roomType.getId(), Room.RoomStatus.CLEANING));
+        return lockFirstAvailable(candidates, checkIn, checkOut);
     }
 
-    private Room findAvailableRoomByType(BookingRequestDTO bookingRequest, LocalDate checkIn, LocalDate checkOut) {
-
-        List<Room> rooms = roomRepository.findByRoomTypeId(bookingRequest.getRoomTypeId());
-
-
-        for (Room room : rooms) {
-            if (isRoomAvailableForDates(room, checkIn, checkOut)) {
+    // Candidates are checked against the ledger without locks; only the room about to be booked is row-locked,
+    // then checked again under the lock. A room that lost a race stays row-locked until commit, so from then on
+    // only higher ids are tried: row locks are always taken in ascending id order, as in the group path.
+    private Room lockFirstAvailable(Collection<Long> roomIds, LocalDate checkIn, LocalDate checkOut) {
+        long lockedUpTo = Long.MIN_VALUE;
+        for (Long roomId : roomIds) {
+            if (roomId <= lockedUpTo || !roomNightLedger.isFree(roomId, checkIn, checkOut)) {
+                continue;
+            }
+            if (!roomLocks.tryAcquire(roomId)) {
+                continue;
+            }
 
-                Integer numberOfGuests = calculateTotalGuests(bookingRequest);
-                if (numberOfGuests != null && numberOfGuests <= room.getRoomType().getMaxCapacity()) {
-                    return room;
-                }
+            Room room = roomRepository.findByIdForUpdate(roomId).orElse(null);
+            if (room != null && isRoomAvailableForDates(room, checkIn, checkOut)) {
+                roomLocks.releaseAfterCompletion(roomId);
+                return room;
             }
+            roomLocks.release(roomId);
+            lockedUpTo = roomId;
         }
 
         return null;
@@ -236,19 +585,20 @@ public class BookingService implements IBookingService {
     }
 
     @Override
-    public Response getUserBookings(Long userId) {
+    public Response getUserBookings(Long userId, String cursor, Integer limit) {
         Response response = new Response();
 
         try {
-            List<Booking> bookings = bookingRepository.findByUserId(userId);
-            List<BookingDTO> dtos = bookings.stream()
-                    .map(this::mapToBookingDTO)
-                    .sorted((b1, b2) -> b2.getBookingDate().compareTo(b1.getBookingDate()))
-                    .collect(Collectors.toList());
+            BookingCursor after = decodeCursor(cursor);
+            int pageSize = pageSize(limit);
+            List<BookingDTO> bookings = bookingRepository.findUserPageAfter(
+                    userId, after.bookingDate(), after.id(), PageRequest.of(0, pageSize + 1));
 
             response.setMessage("Bookings retrieved successfully");
-            response.setBookingList(dtos);
+            fillPage(response, bookings, pageSize);
 
+        } catch (OurException e) {
+            response.setMessage(e.getMessage());
         } catch (Exception e) {
 
             response.setMessage("Failed to retrieve bookings");
@@ -258,19 +608,20 @@ public class BookingService implements IBookingService {
     }
 
     @Override
-    public Response getAllBookings() {
+    public Response getAllBookings(String cursor, Integer limit) {
         Response response = new Response();
 
         try {
-            List<Booking> bookings = bookingRepository.findAll();
-            List<BookingDTO> dtos = bookings.stream()
-                    .map(this::mapToBookingDTO)
-                    .sorted((b1, b2) -> b2.getBookingDate().compareTo(b1.getBookingDate()))
-                    .collect(Collectors.toList());
+            BookingCursor after = decodeCursor(cursor);
+            int pageSize = pageSize(limit);
+            List<BookingDTO> bookings = bookingRepository.findPageAfter(
+                    after.bookingDate(), after.id(), PageRequest.of(0, pageSize + 1));
 
             response.setMessage("All bookings retrieved successfully");
-            response.setBookingList(dtos);
+            fillPage(response, bookings, pageSize);
 
+        } catch (OurException e) {
+            response.setMessage(e.getMessage());
         } catch (Exception e) {
 
             response.setMessage("Failed to retrieve bookings");
@@ -280,8 +631,11 @@ public class BookingService implements IBookingService {
     }
 
     @Override
-    @Transactional
     public Response cancelBooking(String confirmationCode) {
+        return optimisticRetry.execute("cancelBooking", () -> doCancelBooking(confirmationCode));
+    }
+
+    private Response doCancelBooking(String confirmationCode) {
         Response response = new Response();
 
         try {
@@ -305,16 +659,14 @@ public class BookingService implements IBookingService {
             booking.setCancellationDate(LocalDateTime.now());
             bookingRepository.save(booking);
 
-
-            Room room = booking.getRoom();
-            if (room.getStatus() == Room.RoomStatus.RESERVED) {
-                room.setStatus(Room.RoomStatus.AVAILABLE);
-                roomRepository.save(room);
-            }
+            roomNightLedger.releaseBooking(booking.getId());
+            freeCancelledStay(booking);
 
             response.setMessage("Booking cancelled successfully");
             response.setBooking(mapToBookingDTO(booking));
 
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (OurException e) {
             response.setMessage(e.getMessage());
         } catch (Exception e) {
@@ -325,9 +677,97 @@ public class BookingService implements IBookingService {
         return response;
     }
 
+    // Gives a cancelled booking's nights back to the room, the inventory, the index and the search cache.
+    // The ledger nights are released by the caller, singly or in a batch.
+    private void freeCancelledStay(Booking booking) {
+        Room room = booking.getRoom();
+        if (room.getStatus() == Room.RoomStatus.RESERVED) {
+            room.setStatus(Room.RoomStatus.AVAILABLE);
+            roomRepository.save(room);
+            availabilityCache.invalidateType(room.getRoomType().getId());
+        } else {
+            availabilityCache.invalidate(room.getRoomType().getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        }
+
+        inventoryService.releaseStay(room.getRoomType().getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        availabilityIndex.release(room.getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+        availabilityIndex.registerRoom(room);
+    }
+
+    // Deleting a user cascades to the bookings rows only, so their ledger nights, inventory and index bits
+    // are freed here first, the same way a cancellation frees them. Joins the caller's transaction.
     @Override
     @Transactional
+    public void releaseUserBookings(Long userId) {
+        List<Booking> open = bookingRepository.findByUserId(userId).stream()
+                .filter(booking -> booking.getBookingStatus() != Booking.BookingStatus.CANCELLED
+                        && booking.getBookingStatus() != Booking.BookingStatus.CHECKED_OUT)
+                .collect(Collectors.toList());
+        if (open.isEmpty()) {
+            return;
+        }
+
+        roomNightLedger.releaseBookings(open.stream().map(Booking::getId).collect(Collectors.toList()));
+        for (Booking booking : open) {
+            freeCancelledStay(booking);
+        }
+        log.info("Released {} open bookings of deleted user {}", open.size(), userId);
+    }
+
+    // Cancels PENDING bookings whose hold ran out. Due holds come from the delay queue, one transaction per batch.
+    @Scheduled(fixedDelayString = "${booking.hold.sweep-interval-ms:5000}")
+    public void releaseExpiredHolds() {
+        List<Long> due;
+        while (!(due = holdQueue.drainExpired(holdReleaseBatchSize)).isEmpty()) {
+            List<Long> batch = due;
+            try {
+                Response response = optimisticRetry.execute("releaseExpiredHolds", () -> doReleaseExpiredHolds(batch));
+                log.info("Expired booking holds: {}", response.getMessage());
+            } catch (Exception e) {
+                // Put the batch back so the next sweep tries again
+                log.error("Failed to release {} expired booking holds", batch.size(), e);
+                LocalDateTime retryAt = LocalDateTime.now().plusMinutes(1);
+                batch.forEach(bookingId -> holdQueue.schedule(bookingId, retryAt));
+                return;
+            }
+        }
+    }
+
+    private Response doReleaseExpiredHolds(List<Long> bookingIds) {
+        Response response = new Response();
+
+        List<Booking> expired = bookingRepository.findExpiredHolds(bookingIds, LocalDateTime.now());
+        if (expired.isEmpty()) {
+            response.setMessage("none of " + bookingIds.size() + " queued holds still pending");
+            return response;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Booking booking : expired) {
+            booking.setBookingStatus(Booking.BookingStatus.CANCELLED);
+            booking.setCancellationDate(now);
+        }
+        bookingRepository.saveAll(expired);
+
+        roomNightLedger.releaseBookings(expired.stream().map(Booking::getId).collect(Collectors.toList()));
+        for (Booking booking : expired) {
+            freeCancelledStay(booking);
+        }
+
+        response.setMessage(expired.size() + " of " + bookingIds.size() + " queued holds released");
+        return response;
+    }
+
+    private LocalDateTime holdExpiry() {
+        return holdMinutes > 0 ? LocalDateTime.now().plusMinutes(holdMinutes) : null;
+    }
+
+    @Override
     public Response confirmBooking(String confirmationCode) {
+        return optimisticRetry.execute("confirmBooking", () -> doConfirmBooking(confirmationCode));
+    }
+
+    private Response doConfirmBooking(String confirmationCode) {
         Response response = new Response();
 
         try {
@@ -341,11 +781,14 @@ public class BookingService implements IBookingService {
 
             booking.setBookingStatus(Booking.BookingStatus.CONFIRMED);
             booking.setConfirmationDate(LocalDateTime.now());
+            booking.setHoldExpiresAt(null);
             bookingRepository.save(booking);
 
             response.setMessage("Booking confirmed successfully");
             response.setBooking(mapToBookingDTO(booking));
 
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (OurException e) {
             response.setMessage(e.getMessage());
         } catch (Exception e) {
@@ -357,8 +800,11 @@ public class BookingService implements IBookingService {
     }
 
     @Override
-    @Transactional
     public Response checkInBooking(String confirmationCode) {
+        return optimisticRetry.execute("checkInBooking", () -> doCheckInBooking(confirmationCode));
+    }
+
+    private Response doCheckInBooking(String confirmationCode) {
         Response response = new Response();
 
         try {
@@ -379,15 +825,20 @@ public class BookingService implements IBookingService {
             }
 
             booking.setBookingStatus(Booking.BookingStatus.CHECKED_IN);
+            booking.setHoldExpiresAt(null);
             bookingRepository.save(booking);
 
             Room room = booking.getRoom();
             room.setStatus(Room.RoomStatus.OCCUPIED);
             roomRepository.save(room);
+            availabilityIndex.registerRoom(room);
+            availabilityCache.invalidateType(room.getRoomType().getId());
 
             response.setMessage("Check-in successful");
             response.setBooking(mapToBookingDTO(booking));
 
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (OurException e) {
             response.setMessage(e.getMessage());
         } catch (Exception e) {
@@ -399,8 +850,11 @@ public class BookingService implements IBookingService {
     }
 
     @Override
-    @Transactional
     public Response checkOutBooking(String confirmationCode) {
+        return optimisticRetry.execute("checkOutBooking", () -> doCheckOutBooking(confirmationCode));
+    }
+
+    private Response doCheckOutBooking(String confirmationCode) {
         Response response = new Response();
 
         try {
@@ -419,10 +873,18 @@ public class BookingService implements IBookingService {
             Room room = booking.getRoom();
             room.setStatus(Room.RoomStatus.CLEANING);
             roomRepository.save(room);
+            availabilityCache.invalidateType(room.getRoomType().getId());
+
+            roomNightLedger.releaseBooking(booking.getId());
+            inventoryService.releaseStay(room.getRoomType().getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+            availabilityIndex.release(room.getId(), booking.getCheckInDate(), booking.getCheckOutDate());
+            availabilityIndex.registerRoom(room);
 
             response.setMessage("Check-out successful");
             response.setBooking(mapToBookingDTO(booking));
 
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (OurException e) {
             response.setMessage(e.getMessage());
         } catch (Exception e) {
@@ -434,19 +896,21 @@ public class BookingService implements IBookingService {
     }
 
     @Override
-    public Response getBookingsByStatus(String status) {
+    public Response getBookingsByStatus(String status, String cursor, Integer limit) {
         Response response = new Response();
 
         try {
             Booking.BookingStatus bookingStatus = Booking.BookingStatus.valueOf(status.toUpperCase());
-            List<Booking> bookings = bookingRepository.findByBookingStatus(bookingStatus);
-            List<BookingDTO> dtos = bookings.stream()
-                    .map(this::mapToBookingDTO)
-                    .collect(Collectors.toList());
+            BookingCursor after = decodeCursor(cursor);
+            int pageSize = pageSize(limit);
+            List<BookingDTO> bookings = bookingRepository.findStatusPageAfter(
+                    bookingStatus, after.bookingDate(), after.id(), PageRequest.of(0, pageSize + 1));
 
             response.setMessage("Bookings retrieved successfully");
-            response.setBookingList(dtos);
+            fillPage(response, bookings, pageSize);
 
+        } catch (OurException e) {
+            response.setMessage(e.getMessage());
         } catch (IllegalArgumentException e) {
             response.setMessage("Invalid status: " + status);
         } catch (Exception e) {
@@ -458,30 +922,29 @@ public class BookingService implements IBookingService {
     }
 
     @Override
-    public Response searchBookings(String searchTerm) {
+    public Response searchBookings(String searchTerm, int page, Integer limit) {
         Response response = new Response();
 
         try {
+            if (page < 0) {
+                response.setMessage("Page must not be negative");
+                return response;
+            }
 
-            List<Booking> allBookings = bookingRepository.findAll();
-            List<Booking> filteredBookings = allBookings.stream()
-                    .filter(booking ->
-                            (booking.getBookingConfirmationCode() != null &&
-                                    booking.getBookingConfirmationCode().contains(searchTerm)) ||
-                                    (booking.getUser().getEmail() != null &&
-                                            booking.getUser().getEmail().contains(searchTerm)) ||
-                                    (booking.getUser().getName() != null &&
-                                            booking.getUser().getName().contains(searchTerm)) ||
-                                    (booking.getRoom().getRoomNumber() != null &&
-                                            booking.getRoom().getRoomNumber().contains(searchTerm))
-                    )
-                    .collect(Collectors.toList());
-
-            List<BookingDTO> dtos = filteredBookings.stream()
-                    .map(this::mapToBookingDTO)
-                    .collect(Collectors.toList());
+            // Ranked ids from the in-memory trigram index, then one projection query for the page
+            BookingSearchIndex.Page hits = searchIndex.search(searchTerm, page, pageSize(limit));
+            List<BookingDTO> dtos = new ArrayList<>();
+            if (!hits.bookingIds().isEmpty()) {
+                Map<Long, BookingDTO> byId = bookingRepository.findDtosByIds(hits.bookingIds()).stream()
+                        .collect(Collectors.toMap(BookingDTO::getId, dto -> dto));
+                dtos = hits.bookingIds().stream()
+                        .map(byId::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+            }
 
             response.setMessage("Search completed");
+            response.setTotalResults(hits.total());
             response.setBookingList(dtos);
 
         } catch (Exception e) {
@@ -494,6 +957,76 @@ public class BookingService implements IBookingService {
 
 
 
+    @Override
+    public Response autocomplete(String prefix, String field, Integer limit) {
+        Response response = new Response();
+
+        try {
+            String normalizedField = field == null || field.isBlank() ? null : field.trim().toLowerCase();
+            if (normalizedField != null && !List.of(TypeaheadIndex.CODE, TypeaheadIndex.EMAIL, TypeaheadIndex.ROOM)
+                    .contains(normalizedField)) {
+                response.setMessage("Invalid field: " + field + " (expected code, email or room)");
+                return response;
+            }
+
+            int topK = limit == null ? 10 : Math.max(1, Math.min(limit, maxSuggestions));
+            response.setSuggestions(typeaheadIndex.suggest(prefix, normalizedField, topK));
+            response.setMessage("Suggestions retrieved successfully");
+
+        } catch (Exception e) {
+
+            response.setMessage("Failed to retrieve suggestions");
+        }
+
+        return response;
+    }
+
+    // ========== KEYSET PAGINATION ==========
+    // Listings are ordered newest first on (bookingDate, id). A page is the rows strictly after the cursor,
+    // fetched with one extra row to tell whether another page follows. The cursor is the last row's key,
+    // Base64-encoded, so deep pages cost the same as the first one.
+
+    private record BookingCursor(LocalDateTime bookingDate, Long id) {
+    }
+
+    private static final BookingCursor FIRST_PAGE = new BookingCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+
+    private void fillPage(Response response, List<BookingDTO> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<BookingDTO> page = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        response.setBookingList(page);
+        if (hasMore) {
+            response.setNextCursor(encodeCursor(page.get(page.size() - 1)));
+        }
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    private static String encodeCursor(BookingDTO last) {
+        String key = last.getBookingDate() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static BookingCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST_PAGE;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf('|');
+            return new BookingCursor(LocalDateTime.parse(key.substring(0, separator)),
+                    Long.parseLong(key.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new OurException("Invalid cursor");
+        }
+    }
+
     // Helper method
     private BookingDTO mapToBookingDTO(Booking booking) {
         BookingDTO dto = new BookingDTO();
@@ -508,14 +1041,10 @@ public class BookingService implements IBookingService {
         dto.setConfirmationDate(booking.getConfirmationDate());
         dto.setCancellationDate(booking.getCancellationDate());
         dto.setSpecialRequests(booking.getSpecialRequests());
+        dto.setGroupCode(booking.getGroupCode());
+        dto.setHoldExpiresAt(booking.getHoldExpiresAt());
 
-        // Calculate nights using Period
-        long nights = calculateNights(booking.getCheckInDate(), booking.getCheckOutDate());
-        // Ensure at least 1 night
-        if (nights == 0 && !booking.getCheckInDate().equals(booking.getCheckOutDate())) {
-            nights = 1;
-        }
-        dto.setNumberOfNights((int) nights);
+        dto.setNumberOfNights((int) calculateNights(booking.getCheckInDate(), booking.getCheckOutDate()));
 
         // Map room info
         if (booking.getRoom() != null) {
@@ -1,22 +1,38 @@
 package com.shalom.shalomhotel.Service.impl;
 
 import com.shalom.shalomhotel.Dto.*;
+import com.shalom.shalomhotel.Service.AvailabilityCache;
+import com.shalom.shalomhotel.Service.AvailabilityRequestCoalescer;
 import com.shalom.shalomhotel.Service.AwsS3Service;
+import com.shalom.shalomhotel.Service.BookingSearchIndex;
+import com.shalom.shalomhotel.Service.OptimisticRetryExecutor;
+import com.shalom.shalomhotel.Service.RoomAvailabilityIndex;
+import com.shalom.shalomhotel.Service.RoomInventoryService;
+import com.shalom.shalomhotel.Service.TypeaheadIndex;
 import com.shalom.shalomhotel.Service.interfac.IRoomService;
 import com.shalom.shalomhotel.entity.*;
 import com.shalom.shalomhotel.Exception.OurException;
 import com.shalom.shalomhotel.repository.*;
+import com.shalom.shalomhotel.utils.Utils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.Period;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,10 +52,39 @@ public class RoomService implements IRoomService {
     @Autowired
 
     private  AwsS3Service awsS3Service;
+    @Autowired
+
+    private  RoomAvailabilityIndex availabilityIndex;
+    @Autowired
+
+    private  RoomInventoryService inventoryService;
+    @Autowired
+
+    private  AvailabilityCache availabilityCache;
+    @Autowired
+
+    private  AvailabilityRequestCoalescer requestCoalescer;
+    @Autowired
+
+    private  OptimisticRetryExecutor optimisticRetry;
+    @Autowired
+
+    private  BookingSearchIndex bookingSearchIndex;
+    @Autowired
+
+    private  TypeaheadIndex typeaheadIndex;
+
+    // index = in-memory occupancy index, query = single NOT EXISTS statement, scan = per-room overlap check,
+    // inventory = room_type_inventory read model (summary counts only; room lists fall back to index)
+    @Value("${availability.strategy:index}")
+    private String availabilityStrategy;
+
+    private static final int MAX_FLEXIBLE_WINDOW_DAYS = 366;
+    private static final int MAX_CALENDAR_MONTHS = 12;
 
     // Helper method to calculate nights
     private long calculateNights(LocalDate checkIn, LocalDate checkOut) {
-        return Period.between(checkIn, checkOut).getDays();
+        return ChronoUnit.DAYS.between(checkIn, checkOut);
     }
     // ========== ROOM TYPE MANAGEMENT ==========
 
@@ -140,6 +185,7 @@ public class RoomService implements IRoomService {
             }
 
             RoomType updatedRoomType = roomTypeRepository.save(roomType);
+            availabilityCache.invalidateType(updatedRoomType.getId());
 
             response.setMessage("Room type updated successfully");
             response.setRoomType(mapToRoomTypeDTO(updatedRoomType));
@@ -271,6 +317,10 @@ public class RoomService implements IRoomService {
             room.setSpecialFeatures(specialFeatures != null ? specialFeatures.trim() : null);
 
             Room savedRoom = roomRepository.save(room);
+            availabilityIndex.registerRoom(savedRoom);
+            typeaheadIndex.replaceRoomNumber(null, savedRoom.getRoomNumber());
+            inventoryService.syncCapacity(roomType.getId());
+            availabilityCache.invalidateType(roomType.getId());
 
             response.setMessage("Room added successfully");
             response.setRoom(mapToRoomDTO(savedRoom));
@@ -304,7 +354,9 @@ public class RoomService implements IRoomService {
                         response.setMessage("Room number '" + roomNumber + "' already exists");
                         return response;
                     }
+                    typeaheadIndex.replaceRoomNumber(room.getRoomNumber(), trimmedRoomNumber);
                     room.setRoomNumber(trimmedRoomNumber);
+                    bookingSearchIndex.updateRoom(room.getId(), trimmedRoomNumber);
                 }
             }
 
@@ -315,6 +367,14 @@ public class RoomService implements IRoomService {
             if (roomTypeId != null) {
                 RoomType roomType = roomTypeRepository.findById(roomTypeId)
                         .orElseThrow(() -> new OurException("Room type not found"));
+                if (!roomType.getId().equals(room.getRoomType().getId())) {
+                    Long previousTypeId = room.getRoomType().getId();
+                    moveSoldNights(room.getId(), previousTypeId, roomType.getId());
+                    room.setRoomType(roomType);
+                    inventoryService.syncCapacity(previousTypeId);
+                    inventoryService.syncCapacity(roomType.getId());
+                    availabilityCache.invalidateType(previousTypeId);
+                }
                 room.setRoomType(roomType);
             }
 
@@ -331,6 +391,8 @@ public class RoomService implements IRoomService {
             }
 
             Room updatedRoom = roomRepository.save(room);
+            availabilityIndex.registerRoom(updatedRoom);
+            availabilityCache.invalidateType(updatedRoom.getRoomType().getId());
 
             response.setMessage("Room updated successfully");
             response.setRoom(mapToRoomDTO(updatedRoom));
@@ -345,9 +407,25 @@ public class RoomService implements IRoomService {
         return response;
     }
 
+    // A room changing type takes its booked nights from tonight with it, so the old type stops counting them
+    // as sold and the new one starts. The room lock makes a concurrent booking of it wait for the change and
+    // then record its nights under the new type.
+    private void moveSoldNights(Long roomId, Long fromTypeId, Long toTypeId) {
+        roomRepository.findByIdForUpdate(roomId);
+        LocalDate today = LocalDate.now();
+        for (BookingRepository.StayView stay : bookingRepository.findActiveStaysForRoom(roomId, today)) {
+            LocalDate from = stay.getCheckInDate().isBefore(today) ? today : stay.getCheckInDate();
+            inventoryService.releaseStay(fromTypeId, from, stay.getCheckOutDate());
+            inventoryService.recordStay(toTypeId, from, stay.getCheckOutDate());
+        }
+    }
+
     @Override
-    @Transactional
     public Response updateRoomStatus(Long roomId, String status) {
+        return optimisticRetry.execute("updateRoomStatus", () -> doUpdateRoomStatus(roomId, status));
+    }
+
+    private Response doUpdateRoomStatus(Long roomId, String status) {
         Response response = new Response();
 
         try {
@@ -366,6 +444,8 @@ public class RoomService implements IRoomService {
 
                 room.setStatus(newStatus);
                 roomRepository.save(room);
+                availabilityIndex.registerRoom(room);
+                availabilityCache.invalidateType(room.getRoomType().getId());
 
                 response.setMessage("Room status updated successfully");
                 response.setRoom(mapToRoomDTO(room));
@@ -374,6 +454,8 @@ public class RoomService implements IRoomService {
                 response.setMessage("Invalid status: " + status);
             }
 
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (OurException e) {
             response.setMessage(e.getMessage());
         } catch (Exception e) {
@@ -426,7 +508,14 @@ public class RoomService implements IRoomService {
                 return response;
             }
 
+            Long roomTypeId = room.getRoomType().getId();
+            typeaheadIndex.removeCodes(bookingRepository.findConfirmationCodesByRoomId(room.getId()));
+            typeaheadIndex.removeRoomNumber(room.getRoomNumber());
             roomRepository.delete(room);
+            availabilityIndex.removeRoom(room.getId());
+            bookingSearchIndex.removeRoom(room.getId());
+            inventoryService.syncCapacity(roomTypeId);
+            availabilityCache.invalidateType(roomTypeId);
             response.setMessage("Room deleted successfully");
 
         } catch (OurException e) {
@@ -444,10 +533,7 @@ public class RoomService implements IRoomService {
         Response response = new Response();
 
         try {
-            List<Room> rooms = roomRepository.findAll();
-            List<RoomDTO> dtos = rooms.stream()
-                    .map(this::mapToRoomDTO)
-                    .collect(Collectors.toList());
+            List<RoomDTO> dtos = roomRepository.findAllRoomDtos();
 
             response.setMessage("Rooms retrieved successfully");
             response.setRoomList(dtos);
@@ -514,16 +600,14 @@ public class RoomService implements IRoomService {
             RoomType rt = roomTypeRepository.findByTypeName(roomType.trim())
                     .orElseThrow(() -> new OurException("Room type not found"));
 
-            List<Room> availableRooms = findAvailableRooms(rt.getId(), checkInDate, checkOutDate);
-
             // Create DTOs for individual rooms
-            List<RoomDTO> roomDTOs = availableRooms.stream()
-                    .map(this::mapToRoomDTO)
-                    .collect(Collectors.toList());
+            List<RoomDTO> roomDTOs = availabilityCache.get(rt.getId(), checkInDate, checkOutDate, () ->
+                    requestCoalescer.execute(rt.getId(), checkInDate, checkOutDate, () ->
+                            findAvailableRooms(rt.getId(), checkInDate, checkOutDate)));
 
             response.setRoomList(roomDTOs);
 
-            if (availableRooms.isEmpty()) {
+            if (roomDTOs.isEmpty()) {
                 response.setMessage("No available rooms for the selected dates");
             } else {
                 response.setMessage("Available rooms found");
@@ -540,12 +624,251 @@ public class RoomService implements IRoomService {
     }
 
 
-    // Replace the findAvailableRooms method with proper implementation
-    private List<Room> findAvailableRooms(Long roomTypeId, LocalDate checkInDate, LocalDate checkOutDate) {
-        // Get all rooms of the specified type
+    @Override
+    public Response getAvailabilitySummary(LocalDate checkInDate, LocalDate checkOutDate, Integer numberOfGuests) {
+        Response response = new Response();
+
+        try {
+            // Validate dates
+            if (checkInDate == null || checkOutDate == null) {
+                response.setMessage("Check-in and check-out dates are required");
+                return response;
+            }
+
+            if (checkInDate.isBefore(LocalDate.now())) {
+                response.setMessage("Check-in date cannot be in the past");
+                return response;
+            }
+
+            if (!checkOutDate.isAfter(checkInDate)) {
+                response.setMessage("Check-out date must be after check-in date");
+                return response;
+            }
+
+            if (numberOfGuests != null && numberOfGuests <= 0) {
+                response.setMessage("Valid number of guests is required");
+                return response;
+            }
+
+            Map<Long, Integer> counts = countAvailableRoomsByType(checkInDate, checkOutDate);
+
+            List<AvailableRoomDTO> summary = roomTypeRepository.findAll().stream()
+                    .filter(rt -> numberOfGuests == null || rt.getMaxCapacity() >= numberOfGuests)
+                    .map(rt -> Utils.mapRoomTypeToAvailableRoomDTO(rt, checkInDate, checkOutDate,
+                            counts.getOrDefault(rt.getId(), 0)))
+                    .collect(Collectors.toList());
+
+            response.setAvailableRoomList(summary);
+            response.setMessage(summary.isEmpty()
+                    ? "No room types match the selected guests"
+                    : "Availability summary retrieved successfully");
+
+        } catch (Exception e) {
+
+            response.setMessage("Failed to check availability");
+        }
+
+        return response;
+    }
+
+    @Override
+    public Response getFlexibleAvailability(String roomType, LocalDate windowStart, LocalDate windowEnd,
+                                            Integer nights, String sortBy) {
+        Response response = new Response();
+
+        try {
+            if (windowStart == null || windowEnd == null) {
+                response.setMessage("Window start and end dates are required");
+                return response;
+            }
+
+            if (windowStart.isBefore(LocalDate.now())) {
+                response.setMessage("Window start cannot be in the past");
+                return response;
+            }
+
+            if (!windowEnd.isAfter(windowStart)) {
+                response.setMessage("Window end must be after window start");
+                return response;
+            }
+
+            if (windowEnd.toEpochDay() - windowStart.toEpochDay() > MAX_FLEXIBLE_WINDOW_DAYS) {
+                response.setMessage("Window cannot be longer than " + MAX_FLEXIBLE_WINDOW_DAYS + " days");
+                return response;
+            }
+
+            if (nights == null || nights <= 0 || nights > windowEnd.toEpochDay() - windowStart.toEpochDay()) {
+                response.setMessage("Number of nights must fit inside the window");
+                return response;
+            }
+
+            if (roomType == null || roomType.isBlank()) {
+                response.setMessage("Room type is required");
+                return response;
+            }
+
+            RoomType rt = roomTypeRepository.findByTypeName(roomType.trim())
+                    .orElseThrow(() -> new OurException("Room type not found"));
+
+            int[] freeRooms = availabilityIndex.countFreeStaysInWindow(rt.getId(), windowStart, windowEnd, nights);
+
+            List<AvailableRoomDTO> stays = new ArrayList<>();
+            for (int d = 0; d < freeRooms.length; d++) {
+                if (freeRooms[d] > 0) {
+                    LocalDate checkIn = windowStart.plusDays(d);
+                    stays.add(Utils.mapRoomTypeToAvailableRoomDTO(rt, checkIn, checkIn.plusDays(nights), freeRooms[d]));
+                }
+            }
+
+            // Rates are flat per room type, so every stay of the same length costs the same;
+            // "availability" puts the check-in dates with the most free rooms first
+            if ("availability".equalsIgnoreCase(sortBy)) {
+                stays.sort(Comparator.comparing(AvailableRoomDTO::getAvailableCount).reversed()
+                        .thenComparing(AvailableRoomDTO::getCheckInDate));
+            }
+
+            response.setAvailableRoomList(stays);
+            response.setMessage(stays.isEmpty()
+                    ? "No available stays in the selected window"
+                    : "Available stays found");
+
+        } catch (OurException e) {
+            response.setMessage(e.getMessage());
+        } catch (Exception e) {
+
+            response.setMessage("Failed to check availability");
+        }
+
+        return response;
+    }
+
+    @Override
+    public Response getAvailabilityCalendar(String roomType, String month, Integer months) {
+        Response response = new Response();
+
+        try {
+            if (roomType == null || roomType.isBlank()) {
+                response.setMessage("Room type is required");
+                return response;
+            }
+
+            int monthCount = months != null ? months : 1;
+            if (monthCount <= 0 || monthCount > MAX_CALENDAR_MONTHS) {
+                response.setMessage("Months must be between 1 and " + MAX_CALENDAR_MONTHS);
+                return response;
+            }
+
+            YearMonth firstMonth;
+            try {
+                firstMonth = YearMonth.parse(month);
+            } catch (Exception e) {
+                response.setMessage("Invalid month: " + month + " (expected yyyy-MM)");
+                return response;
+            }
+
+            RoomType rt = roomTypeRepository.findByTypeName(roomType.trim())
+                    .orElseThrow(() -> new OurException("Room type not found"));
+
+            LocalDate fromDate = firstMonth.atDay(1);
+            LocalDate toDate = firstMonth.plusMonths(monthCount).atDay(1);
+            int days = (int) (toDate.toEpochDay() - fromDate.toEpochDay());
+
+            // Every room of the type that can be sold on some night; booked rooms count too, since a booking only
+            // takes the nights of its own stay. Rooms under maintenance are out of service for every night.
+            Set<Long> sellableRooms = new HashSet<>(
+                    roomRepository.findIdsByRoomTypeIdAndStatusNot(rt.getId(), Room.RoomStatus.MAINTENANCE));
+
+            // Difference array over the range: +1 on each stay's first night, -1 after its last one
+            int[] delta = new int[days + 1];
+            for (BookingRepository.StayView stay :
+                    bookingRepository.findActiveStaysForTypeInRange(rt.getId(), fromDate, toDate)) {
+                if (!sellableRooms.contains(stay.getRoomId())) {
+                    continue;
+                }
+                int from = (int) Math.max(0, stay.getCheckInDate().toEpochDay() - fromDate.toEpochDay());
+                int to = (int) Math.min(days, stay.getCheckOutDate().toEpochDay() - fromDate.toEpochDay());
+                delta[from]++;
+                delta[to]--;
+            }
+
+            int totalRooms = sellableRooms.size();
+            List<CalendarDayDTO> calendar = new ArrayList<>(days);
+            int booked = 0;
+            for (int d = 0; d < days; d++) {
+                booked += delta[d];
+                calendar.add(new CalendarDayDTO(fromDate.plusDays(d), Math.max(0, totalRooms - booked)));
+            }
+
+            response.setMessage("Availability calendar retrieved successfully");
+            response.setCalendarDays(calendar);
+
+        } catch (OurException e) {
+            response.setMessage(e.getMessage());
+        } catch (Exception e) {
+
+            response.setMessage("Failed to retrieve availability calendar");
+        }
+
+        return response;
+    }
+
+    @Override
+    public String getAvailabilityCalendarVersion(String roomType) {
+        if (roomType == null || roomType.isBlank()) {
+            return null;
+        }
+        return roomTypeRepository.findByTypeName(roomType.trim())
+                .map(rt -> availabilityCache.version(rt.getId()))
+                .orElse(null);
+    }
+
+    // Free-room count per room type for the whole hotel, in one grouped pass
+    private Map<Long, Integer> countAvailableRoomsByType(LocalDate checkInDate, LocalDate checkOutDate) {
+        switch (availabilityStrategy) {
+            case "query":
+                return roomRepository.countAvailableRoomsGroupedByType(checkInDate, checkOutDate).stream()
+                        .collect(Collectors.toMap(RoomRepository.TypeCountView::getRoomTypeId,
+                                v -> v.getAvailableCount().intValue()));
+            case "inventory":
+                return inventoryService.countAvailableByType(checkInDate, checkOutDate);
+            case "scan":
+                return roomTypeRepository.findAll().stream()
+                        .collect(Collectors.toMap(RoomType::getId,
+                                rt -> scanAvailableRooms(rt.getId(), checkInDate, checkOutDate).size()));
+            default:
+                return availabilityIndex.countAvailableByType(checkInDate, checkOutDate);
+        }
+    }
+
+    private List<RoomDTO> findAvailableRooms(Long roomTypeId, LocalDate checkInDate, LocalDate checkOutDate) {
+        switch (availabilityStrategy) {
+            case "query":
+                return roomRepository.findAvailableRoomsByTypeAndDates(roomTypeId, checkInDate, checkOutDate).stream()
+                        .map(this::mapToRoomDTO)
+                        .collect(Collectors.toList());
+            case "scan":
+                return scanAvailableRooms(roomTypeId, checkInDate, checkOutDate).stream()
+                        .map(this::mapToRoomDTO)
+                        .collect(Collectors.toList());
+            default:
+                return findAvailableRoomsFromIndex(roomTypeId, checkInDate, checkOutDate);
+        }
+    }
+
+    // Answered from the in-memory occupancy index, then the matching rooms are projected in one query
+    private List<RoomDTO> findAvailableRoomsFromIndex(Long roomTypeId, LocalDate checkInDate, LocalDate checkOutDate) {
+        List<Long> roomIds = availabilityIndex.findAvailableRoomIds(roomTypeId, checkInDate, checkOutDate);
+        if (roomIds.isEmpty()) {
+            return List.of();
+        }
+
+        return roomRepository.findRoomDtosByIds(roomIds);
+    }
+
+    // Original implementation: one overlap query per room of the type
+    private List<Room> scanAvailableRooms(Long roomTypeId, LocalDate checkInDate, LocalDate checkOutDate) {
         List<Room> rooms = roomRepository.findByRoomTypeId(roomTypeId);
 
-        // Filter rooms that are available for the given dates
         return rooms.stream()
                 .filter(room -> room.getStatus() == Room.RoomStatus.AVAILABLE)
                 .filter(room -> isRoomAvailableForDates(room, checkInDate, checkOutDate))
@@ -553,18 +876,15 @@ public class RoomService implements IRoomService {
     }
 
     private boolean isRoomAvailableForDates(Room room, LocalDate checkIn, LocalDate checkOut) {
-        // Check for any overlapping bookings
         List<Booking> overlappingBookings = bookingRepository.findOverlappingBookings(
                 room.getId(),
                 checkIn,
-                checkOut  // REMOVE .minusDays(1) - use checkOut directly
+                checkOut
         );
 
         return overlappingBookings.isEmpty();
     }
 
-
-
     @Override
     public List<String> getAllRoomTypeNames() {
         return roomTypeRepository.findAll().stream()
@@ -572,6 +892,54 @@ public class RoomService implements IRoomService {
                 .collect(Collectors.toList());
     }
 
+    // ========== INVENTORY READ MODEL ==========
+
+    @Override
+    public Response getRoomTypeInventory(Long roomTypeId, LocalDate fromDate, LocalDate toDate) {
+        Response response = new Response();
+
+        try {
+            if (fromDate == null || toDate == null || !toDate.isAfter(fromDate)) {
+                response.setMessage("A valid date range is required");
+                return response;
+            }
+
+            RoomType roomType = roomTypeRepository.findById(roomTypeId)
+                    .orElseThrow(() -> new OurException("Room type not found"));
+
+            List<RoomTypeInventoryDTO> dtos = inventoryService.getRange(roomType.getId(), fromDate, toDate).stream()
+                    .map(Utils::mapInventoryEntityToInventoryDTO)
+                    .collect(Collectors.toList());
+
+            response.setMessage("Inventory retrieved successfully");
+            response.setInventoryList(dtos);
+
+        } catch (OurException e) {
+            response.setMessage(e.getMessage());
+        } catch (Exception e) {
+
+            response.setMessage("Failed to retrieve inventory");
+        }
+
+        return response;
+    }
+
+    @Override
+    public Response rebuildInventory() {
+        Response response = new Response();
+
+        try {
+            int rows = inventoryService.rebuild();
+            response.setMessage("Inventory rebuilt successfully (" + rows + " rows)");
+
+        } catch (Exception e) {
+
+            response.setMessage("Failed to rebuild inventory");
+        }
+
+        return response;
+    }
+
     // ========== HELPER METHODS ==========
 
     private RoomTypeDTO mapToRoomTypeDTO(RoomType roomType) {
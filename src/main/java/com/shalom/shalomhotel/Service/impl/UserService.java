@@ -2,8 +2,14 @@ package com.shalom.shalomhotel.Service.impl;
 
 import com.shalom.shalomhotel.Dto.*;
 import com.shalom.shalomhotel.Exception.OurException;
+import com.shalom.shalomhotel.Service.BookingSearchIndex;
+import com.shalom.shalomhotel.Service.CustomUserDetailService;
+import com.shalom.shalomhotel.Service.TokenVersionService;
+import com.shalom.shalomhotel.Service.TypeaheadIndex;
+import com.shalom.shalomhotel.Service.interfac.IBookingService;
 import com.shalom.shalomhotel.Service.interfac.IUserService;
 import com.shalom.shalomhotel.entity.User;
+import com.shalom.shalomhotel.repository.BookingRepository;
 import com.shalom.shalomhotel.repository.UserRepository;
 import com.shalom.shalomhotel.utils.JWTUtils;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +40,24 @@ public class UserService implements IUserService {
     @Autowired
 
     private  AuthenticationManager authenticationManager;
+    @Autowired
+
+    private  BookingSearchIndex bookingSearchIndex;
+    @Autowired
+
+    private  TypeaheadIndex typeaheadIndex;
+    @Autowired
+
+    private  TokenVersionService tokenVersionService;
+    @Autowired
+
+    private  CustomUserDetailService customUserDetailService;
+    @Autowired
+
+    private  BookingRepository bookingRepository;
+    @Autowired
+
+    private  IBookingService bookingService;
 
 
 
@@ -76,6 +100,7 @@ public class UserService implements IUserService {
 
             // Save user
             User savedUser = userRepository.save(user);
+            typeaheadIndex.replaceEmail(null, savedUser.getEmail());
 
             // Generate token
             String token = jwtUtils.generateToken(savedUser);
@@ -159,6 +184,8 @@ public class UserService implements IUserService {
             // Find existing user
             User existingUser = userRepository.findById(id)
                     .orElseThrow(() -> new OurException("User not found"));
+            boolean credentialsChanged = false;
+            String previousEmail = existingUser.getEmail();
 
             // Update fields if provided
             if (updateRequest.getName() != null && !updateRequest.getName().isBlank()) {
@@ -177,7 +204,9 @@ public class UserService implements IUserService {
                         response.setMessage("Email already exists");
                         return response;
                     }
+                    typeaheadIndex.replaceEmail(existingUser.getEmail(), updateRequest.getEmail());
                     existingUser.setEmail(updateRequest.getEmail());
+                    credentialsChanged = true;
                 }
             }
 
@@ -189,12 +218,20 @@ public class UserService implements IUserService {
                     return response;
                 }
                 existingUser.setPassword(passwordEncoder.encode(updateRequest.getPassword()));
+                credentialsChanged = true;
             }
 
+            // Revoke tokens issued before the change; the new token below carries the new version
+            if (credentialsChanged) {
+                existingUser.setTokenVersion(existingUser.getTokenVersion() + 1);
+                tokenVersionService.evict(id);
+                customUserDetailService.evict(previousEmail);
+            }
 
 
             // Save updated user
             User updatedUser = userRepository.save(existingUser);
+            bookingSearchIndex.updateUser(updatedUser.getId(), updatedUser.getEmail(), updatedUser.getName());
 
             // Generate new token if password or email was changed
             String token = null;
@@ -289,14 +326,8 @@ public class UserService implements IUserService {
 
             UserDTO userDTO = mapToUserDTO(user);
 
-            // Map bookings from user entity (if eager loading is configured)
-            // Note: This only works if bookings are eagerly loaded or you fetch them
-            List<BookingDTO> bookingDTOs = user.getBookings().stream()
-                    .map(this::mapToBookingDTO)
-                    .collect(Collectors.toList());
-
-            // ALTERNATIVE: If you have a BookingService, use it instead:
-            // List<BookingDTO> bookingDTOs = bookingService.getUserBookings(id);
+            // User.bookings is lazy; read the history as DTOs in one joined query instead
+            List<BookingDTO> bookingDTOs = bookingRepository.findDtosByUserId(id);
 
             response.setMessage("Booking history retrieved successfully");
             response.setUser(userDTO);
@@ -323,12 +354,20 @@ public class UserService implements IUserService {
             Long id = Long.parseLong(userId);
 
             // Check if user exists
-            if (!userRepository.existsById(id)) {
+            User user = userRepository.findById(id).orElse(null);
+            if (user == null) {
                 response.setMessage("User not found");
                 return response;
             }
 
+            // Bookings go with the user (cascade); free their nights and drop their codes from autocomplete first
+            bookingService.releaseUserBookings(id);
+            typeaheadIndex.removeCodes(bookingRepository.findConfirmationCodesByUserId(id));
+            typeaheadIndex.removeEmail(user.getEmail());
             userRepository.deleteById(id);
+            tokenVersionService.evict(id);
+            customUserDetailService.evict(user.getEmail());
+            bookingSearchIndex.removeUser(id);
             response.setMessage("User deleted successfully");
 
         } catch (NumberFormatException e) {
@@ -374,27 +413,4 @@ public class UserService implements IUserService {
         dto.setRole(user.getRole());
         return dto;
     }
-
-    private BookingDTO mapToBookingDTO(com.shalom.shalomhotel.entity.Booking booking) {
-        BookingDTO dto = new BookingDTO();
-        dto.setId(booking.getId());
-        dto.setBookingConfirmationCode(booking.getBookingConfirmationCode());
-        dto.setCheckInDate(booking.getCheckInDate());
-        dto.setCheckOutDate(booking.getCheckOutDate());
-        dto.setNumberOfGuests(booking.getNumberOfGuests());
-        dto.setTotalPrice(booking.getTotalPrice());
-        dto.setBookingStatus(booking.getBookingStatus());
-        dto.setBookingDate(booking.getBookingDate());
-
-        // Map room info
-        if (booking.getRoom() != null) {
-            dto.setRoomId(booking.getRoom().getId());
-            dto.setRoomNumber(booking.getRoom().getRoomNumber());
-            if (booking.getRoom().getRoomType() != null) {
-                dto.setRoomType(booking.getRoom().getRoomType().getTypeName());
-            }
-        }
-
-        return dto;
-    }
 }
\ No newline at end of file
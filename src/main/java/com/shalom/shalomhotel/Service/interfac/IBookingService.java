@@ -1,6 +1,7 @@
 package com.shalom.shalomhotel.Service.interfac;
 
 import com.shalom.shalomhotel.Dto.BookingRequestDTO;
+import com.shalom.shalomhotel.Dto.GroupBookingRequestDTO;
 import com.shalom.shalomhotel.Dto.Response;
 
 
@@ -8,20 +9,25 @@ public interface IBookingService {
 
     // Create and retrieve bookings
     Response createBooking(BookingRequestDTO bookingRequest);
+    Response createBookings(GroupBookingRequestDTO groupRequest);
     Response getBookingByConfirmationCode(String confirmationCode);
-    Response getUserBookings(Long userId);
-    Response getAllBookings();
+    Response getUserBookings(Long userId, String cursor, Integer limit);
+    Response getAllBookings(String cursor, Integer limit);
 
     // Booking status management
     Response cancelBooking(String confirmationCode);
     Response confirmBooking(String confirmationCode);
 
-    Response getBookingsByStatus(String status);
+    Response getBookingsByStatus(String status, String cursor, Integer limit);
 
-    Response searchBookings(String searchTerm);
+    Response searchBookings(String searchTerm, int page, Integer limit);
+    Response autocomplete(String prefix, String field, Integer limit);
 
     Response checkInBooking(String confirmationCode);
     Response checkOutBooking(String confirmationCode);
 
+    // Gives back the nights of a user's open bookings before the user (and with it the bookings) is deleted
+    void releaseUserBookings(Long userId);
+
 
 }
\ No newline at end of file
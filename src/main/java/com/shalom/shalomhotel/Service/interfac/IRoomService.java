@@ -29,6 +29,16 @@ public interface IRoomService {
 
     Response getAvailableRoomsByDatesAndType(LocalDate checkInDate, LocalDate checkOutDate,
                                              String roomType);
+    Response getAvailabilitySummary(LocalDate checkInDate, LocalDate checkOutDate, Integer numberOfGuests);
+    Response getFlexibleAvailability(String roomType, LocalDate windowStart, LocalDate windowEnd,
+                                     Integer nights, String sortBy);
+    Response getAvailabilityCalendar(String roomType, String month, Integer months);
+    // Changes whenever the type's calendar may have changed; null for an unknown type
+    String getAvailabilityCalendarVersion(String roomType);
     List<String> getAllRoomTypeNames();
 
+    // Inventory read model
+    Response getRoomTypeInventory(Long roomTypeId, LocalDate fromDate, LocalDate toDate);
+    Response rebuildInventory();
+
 }
\ No newline at end of file
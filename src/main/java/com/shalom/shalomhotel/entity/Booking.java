@@ -6,7 +6,13 @@ import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_group_code", columnList = "group_code"),
+        @Index(name = "idx_bookings_hold_expires_at", columnList = "hold_expires_at"),
+        @Index(name = "idx_bookings_booking_date_id", columnList = "booking_date, id"),
+        @Index(name = "idx_bookings_user_booking_date_id", columnList = "user_id, booking_date, id"),
+        @Index(name = "idx_bookings_status_booking_date_id", columnList = "booking_status, booking_date, id")
+})
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -51,6 +57,20 @@ public class Booking {
 
     private LocalDateTime cancellationDate;
 
+    // Shared by all bookings created together by one group booking request
+    @Column(name = "group_code", length = 20)
+    private String groupCode;
+
+    // A PENDING booking is released automatically once this passes; cleared when the booking is confirmed
+    @Column(name = "hold_expires_at")
+    private LocalDateTime holdExpiresAt;
+
+    // Optimistic concurrency: concurrent updates of the same row fail instead of overwriting each other
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Fallback only; the booking service assigns codes from ConfirmationCodeAllocator
     @PrePersist
     private void generateConfirmationCode() {
         if (this.bookingConfirmationCode == null) {
@@ -67,7 +87,7 @@ public class Booking {
     private String generateRandomAlphanumeric(int length) {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
         StringBuilder sb = new StringBuilder();
-        java.util.Random random = new java.util.Random();
+        java.util.concurrent.ThreadLocalRandom random = java.util.concurrent.ThreadLocalRandom.current();
         for (int i = 0; i < length; i++) {
             sb.append(chars.charAt(random.nextInt(chars.length())));
         }
@@ -117,6 +137,15 @@ public class Booking {
     public LocalDateTime getConfirmationDate() { return confirmationDate; }
     public void setConfirmationDate(LocalDateTime confirmationDate) { this.confirmationDate = confirmationDate; }
 
+    public String getGroupCode() { return groupCode; }
+    public void setGroupCode(String groupCode) { this.groupCode = groupCode; }
+
+    public LocalDateTime getHoldExpiresAt() { return holdExpiresAt; }
+    public void setHoldExpiresAt(LocalDateTime holdExpiresAt) { this.holdExpiresAt = holdExpiresAt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public LocalDateTime getCancellationDate() { return cancellationDate; }
     public void setCancellationDate(LocalDateTime cancellationDate) { this.cancellationDate = cancellationDate; }
 
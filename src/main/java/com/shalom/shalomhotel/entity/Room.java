@@ -37,6 +37,11 @@ public class Room {
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Booking> bookings = new ArrayList<>();
 
+    // Incremented on every update; a status change based on a stale read is rejected
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     public enum RoomStatus {
         AVAILABLE, OCCUPIED, MAINTENANCE, RESERVED, CLEANING
     }
@@ -66,6 +71,9 @@ public class Room {
     public String getSpecialFeatures() { return specialFeatures; }
     public void setSpecialFeatures(String specialFeatures) { this.specialFeatures = specialFeatures; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public List<Booking> getBookings() { return bookings; }
     public void setBookings(List<Booking> bookings) { this.bookings = bookings; }
 }
\ No newline at end of file
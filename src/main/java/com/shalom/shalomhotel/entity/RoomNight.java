@@ -0,0 +1,58 @@
+package com.shalom.shalomhotel.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// One row per room and night held by an active booking.
+// The primary key (room_id, night) makes a double booking a constraint violation.
+@Entity
+@Table(name = "room_nights", indexes = @Index(name = "idx_room_nights_booking", columnList = "booking_id"))
+@IdClass(RoomNight.RoomNightId.class)
+public class RoomNight {
+    @Id
+    @Column(name = "room_id")
+    private Long roomId;
+
+    @Id
+    @Column(name = "night")
+    private LocalDate night;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    public Long getRoomId() { return roomId; }
+    public void setRoomId(Long roomId) { this.roomId = roomId; }
+
+    public LocalDate getNight() { return night; }
+    public void setNight(LocalDate night) { this.night = night; }
+
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public static class RoomNightId implements Serializable {
+        private Long roomId;
+        private LocalDate night;
+
+        public RoomNightId() {
+        }
+
+        public RoomNightId(Long roomId, LocalDate night) {
+            this.roomId = roomId;
+            this.night = night;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RoomNightId that)) return false;
+            return Objects.equals(roomId, that.roomId) && Objects.equals(night, that.night);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(roomId, night);
+        }
+    }
+}
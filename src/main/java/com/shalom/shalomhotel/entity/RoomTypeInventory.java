@@ -0,0 +1,42 @@
+package com.shalom.shalomhotel.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "room_type_inventory",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inventory_type_date", columnNames = {"room_type_id", "stay_date"}))
+public class RoomTypeInventory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "room_type_id", nullable = false)
+    private Long roomTypeId;
+
+    @Column(name = "stay_date", nullable = false)
+    private LocalDate stayDate;
+
+    // Rooms of this type that exist on this night
+    @Column(nullable = false)
+    private Integer capacity = 0;
+
+    // Rooms of this type held by an active booking on this night
+    @Column(nullable = false)
+    private Integer sold = 0;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getRoomTypeId() { return roomTypeId; }
+    public void setRoomTypeId(Long roomTypeId) { this.roomTypeId = roomTypeId; }
+
+    public LocalDate getStayDate() { return stayDate; }
+    public void setStayDate(LocalDate stayDate) { this.stayDate = stayDate; }
+
+    public Integer getCapacity() { return capacity; }
+    public void setCapacity(Integer capacity) { this.capacity = capacity; }
+
+    public Integer getSold() { return sold; }
+    public void setSold(Integer sold) { this.sold = sold; }
+}
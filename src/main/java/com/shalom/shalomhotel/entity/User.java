@@ -32,7 +32,11 @@ public class User implements UserDetails {
 
     private String role;
 
-    @OneToMany(mappedBy = "user", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    // Bumped whenever issued tokens must stop working (credentials changed, user deleted); see JWTUtils
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+
+    @OneToMany(mappedBy = "user", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private List<Booking> bookings = new ArrayList<>();
 
     public Long getId() {
@@ -84,6 +88,14 @@ public class User implements UserDetails {
         this.role = role;
     }
 
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     public List<Booking> getBookings() {
         return bookings;
     }
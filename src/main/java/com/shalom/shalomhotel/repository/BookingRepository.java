@@ -1,17 +1,26 @@
 package com.shalom.shalomhotel.repository;
 
+import com.shalom.shalomhotel.Dto.BookingDTO;
 import com.shalom.shalomhotel.entity.Booking;
 import com.shalom.shalomhotel.entity.Booking.BookingStatus;
 import com.shalom.shalomhotel.entity.Room;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
@@ -19,6 +28,90 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByUserId(Long userId);
     List<Booking> findByRoomIdAndBookingStatusNotIn(Long roomId, List<Booking.BookingStatus> statuses);
     List<Booking> findByBookingStatus(BookingStatus status);
+    List<Booking> findByGroupCodeOrderById(String groupCode);
+
+    // Forward-only stream for exports. A fetch size of Integer.MIN_VALUE makes MySQL Connector/J stream rows
+    // one at a time instead of buffering the whole result. Rows are projections, not entities: nothing can
+    // trigger a second query (an eager association, a lazy load) while the streaming result set is still open,
+    // which the connection does not allow, and nothing accumulates in the persistence context.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT b.id AS id, b.bookingConfirmationCode AS bookingConfirmationCode, b.groupCode AS groupCode, " +
+            "b.bookingStatus AS bookingStatus, u.id AS userId, u.email AS userEmail, u.name AS userName, " +
+            "r.id AS roomId, r.roomNumber AS roomNumber, rt.typeName AS roomType, " +
+            "b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate, b.numberOfGuests AS numberOfGuests, " +
+            "b.numOfAdults AS numOfAdults, b.numOfChildren AS numOfChildren, b.totalPrice AS totalPrice, " +
+            "b.bookingDate AS bookingDate, b.confirmationDate AS confirmationDate, " +
+            "b.cancellationDate AS cancellationDate " +
+            "FROM Booking b JOIN b.room r JOIN r.roomType rt JOIN b.user u " +
+            "WHERE b.bookingDate >= :fromDate AND b.bookingDate < :toDate " +
+            "ORDER BY b.bookingDate, b.id")
+    Stream<ExportView> streamForExport(
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate
+    );
+
+    // Booking rows projected straight into BookingDTO, with room, room type and user joined in one statement
+    String BOOKING_DTO_SELECT = "SELECT new com.shalom.shalomhotel.Dto.BookingDTO(" +
+            "b.id, b.bookingConfirmationCode, b.groupCode, r.id, r.roomNumber, rt.typeName, " +
+            "u.id, u.email, u.name, b.checkInDate, b.checkOutDate, " +
+            "b.numberOfGuests, b.numOfAdults, b.numOfChildren, b.totalPrice, b.bookingStatus, b.specialRequests, " +
+            "b.bookingDate, b.confirmationDate, b.cancellationDate, b.holdExpiresAt) " +
+            "FROM Booking b JOIN b.room r JOIN r.roomType rt JOIN b.user u ";
+
+    // Keyset pages, newest first: rows strictly after (afterDate, afterId) in (bookingDate, id) descending order.
+    // The redundant bookingDate <= :afterDate keeps the scan a range on the (.., booking_date, id) indexes.
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE b.bookingDate <= :afterDate " +
+            "AND (b.bookingDate < :afterDate OR b.id < :afterId) " +
+            "ORDER BY b.bookingDate DESC, b.id DESC")
+    List<BookingDTO> findPageAfter(
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE u.id = :userId AND b.bookingDate <= :afterDate " +
+            "AND (b.bookingDate < :afterDate OR b.id < :afterId) " +
+            "ORDER BY b.bookingDate DESC, b.id DESC")
+    List<BookingDTO> findUserPageAfter(
+            @Param("userId") Long userId,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE u.id = :userId " +
+            "ORDER BY b.bookingDate DESC, b.id DESC")
+    List<BookingDTO> findDtosByUserId(@Param("userId") Long userId);
+
+    @Query(BOOKING_DTO_SELECT +
+            "WHERE b.bookingStatus = :status AND b.bookingDate <= :afterDate " +
+            "AND (b.bookingDate < :afterDate OR b.id < :afterId) " +
+            "ORDER BY b.bookingDate DESC, b.id DESC")
+    List<BookingDTO> findStatusPageAfter(
+            @Param("status") BookingStatus status,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    // Prefix scans on the unique confirmation code index and the group code index
+    @Query("SELECT b.bookingConfirmationCode FROM Booking b WHERE b.bookingConfirmationCode LIKE :pattern")
+    List<String> findConfirmationCodesLike(@Param("pattern") String pattern);
+
+    @Query("SELECT DISTINCT b.groupCode FROM Booking b WHERE b.groupCode LIKE :pattern")
+    List<String> findGroupCodesLike(@Param("pattern") String pattern);
+
+    @Query("SELECT b.id AS id, b.holdExpiresAt AS holdExpiresAt FROM Booking b " +
+            "WHERE b.bookingStatus = 'PENDING' AND b.holdExpiresAt IS NOT NULL")
+    List<HoldView> findPendingHolds();
+
+    // Re-checks status and deadline, so holds confirmed or extended after being queued are left alone
+    @Query("SELECT b FROM Booking b JOIN FETCH b.room r JOIN FETCH r.roomType " +
+            "WHERE b.id IN :ids AND b.bookingStatus = 'PENDING' AND b.holdExpiresAt <= :now")
+    List<Booking> findExpiredHolds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
     @Query("SELECT b FROM Booking b WHERE b.room.id = :roomId " +
             "AND b.bookingStatus NOT IN ('CANCELLED', 'CHECKED_OUT') " +
             "AND ((b.checkInDate <= :checkOutDate) AND (b.checkOutDate >= :checkInDate))")
@@ -28,4 +121,107 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             @Param("checkOutDate") LocalDate checkOutDate
     );
     boolean existsByRoomAndCheckOutDateAfter(Room room, LocalDate date);
+
+    // Lightweight rows used to build the availability index and the inventory read model
+    @Query("SELECT b.id AS id, b.room.id AS roomId, b.room.roomType.id AS roomTypeId, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            "FROM Booking b WHERE b.bookingStatus NOT IN ('CANCELLED', 'CHECKED_OUT') " +
+            "AND b.checkOutDate > :fromDate")
+    List<StayView> findActiveStays(@Param("fromDate") LocalDate fromDate);
+
+    @Query("SELECT b.id AS id, b.room.id AS roomId, b.room.roomType.id AS roomTypeId, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            "FROM Booking b WHERE b.room.id = :roomId " +
+            "AND b.bookingStatus NOT IN ('CANCELLED', 'CHECKED_OUT') " +
+            "AND b.checkOutDate > :fromDate")
+    List<StayView> findActiveStaysForRoom(@Param("roomId") Long roomId, @Param("fromDate") LocalDate fromDate);
+
+    @Query("SELECT b.id AS id, b.room.id AS roomId, b.room.roomType.id AS roomTypeId, b.checkInDate AS checkInDate, b.checkOutDate AS checkOutDate " +
+            "FROM Booking b WHERE b.room.roomType.id = :roomTypeId " +
+            "AND b.bookingStatus NOT IN ('CANCELLED', 'CHECKED_OUT') " +
+            "AND b.checkInDate < :toDate AND b.checkOutDate > :fromDate")
+    List<StayView> findActiveStaysForTypeInRange(
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
+
+    // The searchable fields of a booking, as held by the booking search index
+    String SEARCH_DOC_SELECT = "SELECT b.id AS id, b.bookingConfirmationCode AS bookingConfirmationCode, " +
+            "u.id AS userId, u.email AS userEmail, u.name AS userName, r.id AS roomId, r.roomNumber AS roomNumber " +
+            "FROM Booking b JOIN b.user u JOIN b.room r ";
+
+    // In id order, so the search index appends to its posting lists while it loads
+    @Query(SEARCH_DOC_SELECT + "ORDER BY b.id")
+    List<SearchDocView> findAllSearchDocs();
+
+    // Bookings above an id, oldest first: the search index's catch-up on bookings made through other nodes
+    @Query(SEARCH_DOC_SELECT + "WHERE b.id > :afterId ORDER BY b.id")
+    List<SearchDocView> findSearchDocsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Newest bookings whose confirmation code, guest email or room number starts with the prefix. Each is a range
+    // scan on the column's unique index; '!' escapes LIKE wildcards in the prefix.
+    @Query(SEARCH_DOC_SELECT + "WHERE b.bookingConfirmationCode LIKE :prefix ESCAPE '!' ORDER BY b.id DESC")
+    List<SearchDocView> findSearchDocsByCodePrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    @Query(SEARCH_DOC_SELECT + "WHERE u.email LIKE :prefix ESCAPE '!' ORDER BY b.id DESC")
+    List<SearchDocView> findSearchDocsByEmailPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    @Query(SEARCH_DOC_SELECT + "WHERE r.roomNumber LIKE :prefix ESCAPE '!' ORDER BY b.id DESC")
+    List<SearchDocView> findSearchDocsByRoomNumberPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    @Query(BOOKING_DTO_SELECT + "WHERE b.id IN :ids")
+    List<BookingDTO> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.bookingConfirmationCode FROM Booking b")
+    List<String> findAllConfirmationCodes();
+
+    @Query("SELECT b.bookingConfirmationCode FROM Booking b WHERE b.user.id = :userId")
+    List<String> findConfirmationCodesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT b.bookingConfirmationCode FROM Booking b WHERE b.room.id = :roomId")
+    List<String> findConfirmationCodesByRoomId(@Param("roomId") Long roomId);
+
+    interface ExportView {
+        Long getId();
+        String getBookingConfirmationCode();
+        String getGroupCode();
+        BookingStatus getBookingStatus();
+        Long getUserId();
+        String getUserEmail();
+        String getUserName();
+        Long getRoomId();
+        String getRoomNumber();
+        String getRoomType();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+        Integer getNumberOfGuests();
+        Integer getNumOfAdults();
+        Integer getNumOfChildren();
+        BigDecimal getTotalPrice();
+        LocalDateTime getBookingDate();
+        LocalDateTime getConfirmationDate();
+        LocalDateTime getCancellationDate();
+    }
+
+    interface SearchDocView {
+        Long getId();
+        String getBookingConfirmationCode();
+        Long getUserId();
+        String getUserEmail();
+        String getUserName();
+        Long getRoomId();
+        String getRoomNumber();
+    }
+
+    interface HoldView {
+        Long getId();
+        LocalDateTime getHoldExpiresAt();
+    }
+
+    interface StayView {
+        Long getId();
+        Long getRoomId();
+        Long getRoomTypeId();
+        LocalDate getCheckInDate();
+        LocalDate getCheckOutDate();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.shalom.shalomhotel.repository;
+
+import com.shalom.shalomhotel.entity.RoomNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+@Repository
+public interface RoomNightRepository extends JpaRepository<RoomNight, RoomNight.RoomNightId> {
+
+    // Served entirely from the (room_id, night) primary key
+    @Query("SELECT COUNT(n) > 0 FROM RoomNight n WHERE n.roomId = :roomId " +
+            "AND n.night >= :fromDate AND n.night < :toDate")
+    boolean existsNightInRange(
+            @Param("roomId") Long roomId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
+
+    @Modifying
+    @Query("DELETE FROM RoomNight n WHERE n.bookingId = :bookingId")
+    int deleteByBookingId(@Param("bookingId") Long bookingId);
+
+    @Modifying
+    @Query("DELETE FROM RoomNight n WHERE n.bookingId IN :bookingIds")
+    int deleteByBookingIdIn(@Param("bookingIds") Collection<Long> bookingIds);
+}
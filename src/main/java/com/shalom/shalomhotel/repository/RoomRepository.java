@@ -1,10 +1,17 @@
 package com.shalom.shalomhotel.repository;
 
+import com.shalom.shalomhotel.Dto.RoomDTO;
 import com.shalom.shalomhotel.entity.Room;
 import com.shalom.shalomhotel.entity.RoomType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,5 +20,78 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     Optional<Room> findByRoomNumber(String roomNumber);
     List<Room> findByRoomTypeId(Long roomTypeId);
     long countByRoomType(RoomType roomType);
+    long countByRoomTypeId(Long roomTypeId);
 
+    // Row lock on the room for the rest of the transaction; guards reservations across application nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") Long id);
+
+    // Row locks on several rooms, always taken in id order. No join: MySQL's FOR UPDATE would lock the joined
+    // room_types rows as well; the types are loaded separately.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id IN :ids ORDER BY r.id")
+    List<Room> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r.id FROM Room r WHERE r.roomType.id = :roomTypeId AND r.status = :status ORDER BY r.id")
+    List<Long> findIdsByRoomTypeIdAndStatus(@Param("roomTypeId") Long roomTypeId,
+                                            @Param("status") Room.RoomStatus status);
+
+    @Query("SELECT r.id FROM Room r WHERE r.roomType.id = :roomTypeId AND r.status <> :status ORDER BY r.id")
+    List<Long> findIdsByRoomTypeIdAndStatusNot(@Param("roomTypeId") Long roomTypeId,
+                                               @Param("status") Room.RoomStatus status);
+
+    // Free rooms of a type for a half-open stay, in one statement with the room type fetched alongside
+    @Query("SELECT r FROM Room r JOIN FETCH r.roomType rt " +
+            "WHERE rt.id = :roomTypeId AND r.status = 'AVAILABLE' " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b WHERE b.room = r " +
+            "AND b.bookingStatus NOT IN ('CANCELLED', 'CHECKED_OUT') " +
+            "AND b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate) " +
+            "ORDER BY r.id")
+    List<Room> findAvailableRoomsByTypeAndDates(
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("checkInDate") LocalDate checkInDate,
+            @Param("checkOutDate") LocalDate checkOutDate
+    );
+
+    @Query("SELECT r.roomType.id AS roomTypeId, COUNT(r) AS availableCount FROM Room r " +
+            "WHERE r.status = 'AVAILABLE' " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b WHERE b.room = r " +
+            "AND b.bookingStatus NOT IN ('CANCELLED', 'CHECKED_OUT') " +
+            "AND b.checkInDate < :checkOutDate AND b.checkOutDate > :checkInDate) " +
+            "GROUP BY r.roomType.id")
+    List<TypeCountView> countAvailableRoomsGroupedByType(
+            @Param("checkInDate") LocalDate checkInDate,
+            @Param("checkOutDate") LocalDate checkOutDate
+    );
+
+    interface TypeCountView {
+        Long getRoomTypeId();
+        Long getAvailableCount();
+    }
+
+    // Rooms projected straight into RoomDTO with their type in one join
+    String ROOM_DTO_SELECT = "SELECT new com.shalom.shalomhotel.Dto.RoomDTO(" +
+            "r.id, r.roomNumber, r.floorNumber, r.status, r.hasView, r.isAccessible, r.specialFeatures, " +
+            "rt.typeName, rt.description, rt.pricePerNight, rt.photoUrl, rt.maxCapacity, rt.amenities) " +
+            "FROM Room r LEFT JOIN r.roomType rt ";
+
+    @Query(ROOM_DTO_SELECT + "ORDER BY r.id")
+    List<RoomDTO> findAllRoomDtos();
+
+    @Query(ROOM_DTO_SELECT + "WHERE r.id IN :ids ORDER BY r.id")
+    List<RoomDTO> findRoomDtosByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT r.roomNumber FROM Room r")
+    List<String> findAllRoomNumbers();
+
+    // Lightweight rows used to build the in-memory availability index
+    @Query("SELECT r.id AS id, r.roomType.id AS roomTypeId, r.status AS status FROM Room r")
+    List<RoomSlotView> findAllRoomSlots();
+
+    interface RoomSlotView {
+        Long getId();
+        Long getRoomTypeId();
+        Room.RoomStatus getStatus();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.shalom.shalomhotel.repository;
+
+import com.shalom.shalomhotel.entity.RoomTypeInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RoomTypeInventoryRepository extends JpaRepository<RoomTypeInventory, Long> {
+
+    @Query("SELECT i FROM RoomTypeInventory i WHERE i.roomTypeId = :roomTypeId " +
+            "AND i.stayDate >= :fromDate AND i.stayDate < :toDate ORDER BY i.stayDate")
+    List<RoomTypeInventory> findRange(
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
+
+    @Query("SELECT i.stayDate FROM RoomTypeInventory i WHERE i.roomTypeId = :roomTypeId " +
+            "AND i.stayDate >= :fromDate AND i.stayDate < :toDate")
+    List<LocalDate> findStayDates(
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
+
+    // Rooms of each type free on every night of the range that has a row; one range scan over the unique key.
+    // nightCount tells the caller whether some nights of the range have no row yet.
+    @Query("SELECT i.roomTypeId AS roomTypeId, MIN(i.capacity - i.sold) AS availableCount, COUNT(i) AS nightCount " +
+            "FROM RoomTypeInventory i WHERE i.stayDate >= :fromDate AND i.stayDate < :toDate " +
+            "GROUP BY i.roomTypeId")
+    List<TypeAvailabilityView> findMinAvailableGroupedByType(
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
+    );
+
+    @Modifying
+    @Query("UPDATE RoomTypeInventory i SET i.sold = i.sold + :delta WHERE i.roomTypeId = :roomTypeId " +
+            "AND i.stayDate >= :fromDate AND i.stayDate < :toDate")
+    int adjustSold(
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate,
+            @Param("delta") int delta
+    );
+
+    @Modifying
+    @Query("UPDATE RoomTypeInventory i SET i.capacity = :capacity WHERE i.roomTypeId = :roomTypeId " +
+            "AND i.stayDate >= :fromDate")
+    int setCapacity(
+            @Param("roomTypeId") Long roomTypeId,
+            @Param("fromDate") LocalDate fromDate,
+            @Param("capacity") int capacity
+    );
+
+    interface TypeAvailabilityView {
+        Long getRoomTypeId();
+        Long getAvailableCount();
+        Long getNightCount();
+    }
+}
@@ -1,8 +1,12 @@
 package com.shalom.shalomhotel.repository;
 
+import com.shalom.shalomhotel.Security.UserPrincipal;
 import com.shalom.shalomhotel.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +14,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
     Optional<User> findByEmail(String email);
 
+    // Narrow load for authentication; see UserPrincipal
+    @Query("SELECT new com.shalom.shalomhotel.Security.UserPrincipal(u.id, u.email, u.password, u.role) " +
+            "FROM User u WHERE u.email = :email")
+    Optional<UserPrincipal> findPrincipalByEmail(@Param("email") String email);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findTokenVersionById(@Param("id") Long id);
+
+    @Query("SELECT u.email FROM User u")
+    List<String> findAllEmails();
+
 }
@@ -1,17 +1,26 @@
-
 package com.shalom.shalomhotel.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.shalom.shalomhotel.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JWTUtils {
@@ -20,35 +29,98 @@ public class JWTUtils {
 
     private final SecretKey key;
 
-    public JWTUtils(){
+    // Claims of tokens whose signature was already checked, keyed by the token's SHA-256 and dropped at the
+    // token's own expiry, so a client reusing its token skips the HMAC and JSON decode on later requests
+    private final Cache<String, Claims> verifiedClaims;
+
+    public JWTUtils(@Value("${jwt.claims-cache.max-size:10000}") long claimsCacheSize,
+                    MeterRegistry meterRegistry){
         String secreteString = "843567893696976453275974432697R634976R738467TR678T34865R6834R8763T478378637664538745673865783678548735687R3";
         byte[] keyBytes= Base64.getDecoder().decode(secreteString.getBytes(StandardCharsets.UTF_8));
         this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
 
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+                        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwt.claims");
     }
 
-    public String generateToken(UserDetails userDetails){
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    // Id, role and token version travel signed in the token, so JWTAuthFilter can authorize without loading the user
+    public String generateToken(User user){
         return Jwts.builder()
-                .subject(userDetails.getUsername())
+                .subject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole())
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis()+ EXPIRATION_TIME))
                 .signWith(key)
                 .compact();
     }
 
-    public String extractUsername(String token){
-        return extractClaims(token, Claims::getSubject);
+    // Verifies the signature and expiry once and returns the payload; throws JwtException for a bad token
+    public Claims parseClaims(String token){
+        String tokenHash = sha256(token);
+        Claims claims = verifiedClaims.getIfPresent(tokenHash);
+        if (claims == null) {
+            claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+            verifiedClaims.put(tokenHash, claims);
+        }
+        return claims;
+    }
+
+    // False for tokens issued before the claims were added; those are still checked against the database
+    public boolean hasAuthorizationClaims(Claims claims){
+        return claims.get(USER_ID_CLAIM) != null
+                && claims.get(ROLE_CLAIM) != null
+                && claims.get(TOKEN_VERSION_CLAIM) != null;
     }
-    private <T> T extractClaims(String token, Function<Claims, T> claimsTFunction){
-        return claimsTFunction.apply(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload());
 
+    public String extractUsername(String token){
+        return parseClaims(token).getSubject();
     }
+
     public boolean isValidToken(String token, UserDetails userDetails){
-        final String username= extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isValidToken(parseClaims(token), userDetails);
+    }
+
+    public boolean isValidToken(Claims claims, UserDetails userDetails){
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
+    }
+
+    // Cached claims are re-checked here since cache eviction is not exact to the millisecond
+    private boolean isTokenExpired(Claims claims){
+        return claims.getExpiration().before(new Date());
     }
 
-    private boolean isTokenExpired(String token){
-        return extractClaims(token, Claims::getExpiration).before(new Date());
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -143,6 +143,19 @@ public class Utils {
         return dto;
     }
 
+    // Inventory mapping
+    public static RoomTypeInventoryDTO mapInventoryEntityToInventoryDTO(RoomTypeInventory inventory) {
+        if (inventory == null) return null;
+
+        RoomTypeInventoryDTO dto = new RoomTypeInventoryDTO();
+        dto.setRoomTypeId(inventory.getRoomTypeId());
+        dto.setStayDate(inventory.getStayDate());
+        dto.setCapacity(inventory.getCapacity());
+        dto.setSold(inventory.getSold());
+        dto.setAvailable(Math.max(0, inventory.getCapacity() - inventory.getSold()));
+        return dto;
+    }
+
     // List mapping methods
     public static List<RoomDTO> mapRoomListEntityToRoomListDTO(List<Room> roomList) {
         if (roomList == null || roomList.isEmpty()) return List.of();
@@ -0,0 +1,150 @@
+package com.shalom.shalomhotel.Service;
+
+import com.shalom.shalomhotel.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConfirmationCodeAllocatorTest {
+
+    private static final int THREADS = 16;
+    private static final int CODES = 2_000_000;
+    private static final int MIN_CODES_PER_SECOND = 200_000;
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+
+    // Two million codes from concurrent callers on one node (id 3, written as D), decoded back to their random part
+    // and checked for duplicates. Draws are random, so without the issued-codes filter about 33,000 would collide.
+    @Test
+    void millionsOfConcurrentCodesAreUnique() throws Exception {
+        when(bookingRepository.findConfirmationCodesLike(anyString())).thenReturn(List.of());
+        when(bookingRepository.findGroupCodesLike(anyString())).thenReturn(List.of());
+
+        long[] all = allocateConcurrently(allocator(3), "D");
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i] != all[i - 1], "Duplicate code issued");
+        }
+    }
+
+    // Allocation throughput under contention, against a floor far below what one node needs. Timing depends on the
+    // machine, so it only runs when asked for: mvn test -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void concurrentAllocationKeepsUpWithBookingTraffic() throws Exception {
+        when(bookingRepository.findConfirmationCodesLike(anyString())).thenReturn(List.of());
+        when(bookingRepository.findGroupCodesLike(anyString())).thenReturn(List.of());
+        allocateConcurrently(allocator(4), "E");
+
+        long started = System.nanoTime();
+        allocateConcurrently(allocator(4), "E");
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+
+        double codesPerSecond = CODES / seconds;
+        assertTrue(codesPerSecond >= MIN_CODES_PER_SECOND,
+                String.format("%,.0f codes per second on %d threads, expected at least %,d",
+                        codesPerSecond, THREADS, MIN_CODES_PER_SECOND));
+    }
+
+    // After a restart the node must not hand out codes it issued earlier the same day
+    @Test
+    void codesIssuedBeforeRestartAreNotReissued() {
+        ConfirmationCodeAllocator first = allocator(5);
+        when(bookingRepository.findConfirmationCodesLike(anyString())).thenReturn(List.of());
+        when(bookingRepository.findGroupCodesLike(anyString())).thenReturn(List.of());
+        List<String> issuedEarlier = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            issuedEarlier.add(first.nextBookingCode());
+        }
+
+        when(bookingRepository.findConfirmationCodesLike(anyString())).thenReturn(issuedEarlier);
+        ConfirmationCodeAllocator restarted = allocator(5);
+        Set<String> earlier = new HashSet<>(issuedEarlier);
+        for (int i = 0; i < 500_000; i++) {
+            assertFalse(earlier.contains(restarted.nextBookingCode()), "Code issued before the restart was reissued");
+        }
+    }
+
+    @Test
+    void nodesAndCodeKindsDrawFromDisjointRanges() {
+        when(bookingRepository.findConfirmationCodesLike(anyString())).thenReturn(List.of());
+        when(bookingRepository.findGroupCodesLike(anyString())).thenReturn(List.of());
+        String datePart = LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE);
+
+        assertTrue(allocator(0).nextBookingCode().startsWith("SHL-" + datePart + "-A"));
+        assertTrue(allocator(35).nextBookingCode().startsWith("SHL-" + datePart + "-9"));
+        assertTrue(allocator(0).nextGroupCode().startsWith("GRP-" + datePart + "-A"));
+        assertEquals(19, allocator(1).nextBookingCode().length());
+    }
+
+    // CODES codes from THREADS callers sharing one allocator, each checked against the node's format and
+    // returned as its decoded random part
+    private static long[] allocateConcurrently(ConfirmationCodeAllocator allocator, String nodeChar) throws Exception {
+        Pattern format = Pattern.compile("SHL-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)
+                + "-" + nodeChar + "[A-Z0-9]{5}");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    long[] tails = new long[CODES / THREADS];
+                    for (int i = 0; i < tails.length; i++) {
+                        String code = allocator.nextBookingCode();
+                        if (!format.matcher(code).matches()) {
+                            throw new AssertionError("Unexpected code format: " + code);
+                        }
+                        tails[i] = decodeTail(code);
+                    }
+                    return tails;
+                }));
+            }
+
+            long[] all = new long[CODES];
+            int filled = 0;
+            for (Future<long[]> result : results) {
+                long[] tails = result.get();
+                System.arraycopy(tails, 0, all, filled, tails.length);
+                filled += tails.length;
+            }
+            return all;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ConfirmationCodeAllocator allocator(int nodeId) {
+        ConfirmationCodeAllocator allocator = new ConfirmationCodeAllocator(nodeId);
+        ReflectionTestUtils.setField(allocator, "bookingRepository", bookingRepository);
+        return allocator;
+    }
+
+    // The last five characters in base 36, so two million codes fit in a sortable long[]
+    private static long decodeTail(String code) {
+        long value = 0;
+        for (int i = code.length() - 5; i < code.length(); i++) {
+            value = value * ALPHABET.length() + ALPHABET.indexOf(code.charAt(i));
+        }
+        return value;
+    }
+}
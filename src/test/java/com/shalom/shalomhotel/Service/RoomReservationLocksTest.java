@@ -0,0 +1,203 @@
+package com.shalom.shalomhotel.Service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Stress tests for the booking critical section: check the nights, then claim them, under the room's stripe.
+// The check and the claim are deliberately not atomic, so any gap in the locking shows up as a double booking.
+class RoomReservationLocksTest {
+
+    private static final int THREADS = 32;
+    private static final int ROOMS = 20;
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2030, 1, 1);
+
+    // night -> booking that holds it, per room; stands in for the room_nights ledger
+    private final Map<Long, Map<LocalDate, Integer>> ledger = new ConcurrentHashMap<>();
+    private final AtomicInteger bookingIds = new AtomicInteger();
+    private final AtomicInteger doubleBookings = new AtomicInteger();
+    private final AtomicInteger booked = new AtomicInteger();
+
+    @Test
+    void singleRoomBookingsNeverOverlap() throws Exception {
+        RoomReservationLocks locks = new RoomReservationLocks(16, 10_000, 10_000);
+
+        runConcurrently(20_000, random -> {
+            long roomId = 1 + random.nextInt(ROOMS);
+            LocalDate checkIn = FIRST_NIGHT.plusDays(random.nextInt(60));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(5));
+
+            assertTrue(locks.acquire(roomId));
+            try {
+                book(roomId, checkIn, checkOut);
+            } finally {
+                locks.release(roomId);
+            }
+        });
+
+        assertEquals(0, doubleBookings.get());
+        assertTrue(booked.get() > 0);
+    }
+
+    // Group requests lock several rooms at once while single requests keep booking; stripe ordering must keep
+    // every group request from deadlocking, so with a long wait all of them get their locks
+    @Test
+    void groupAndSingleBookingsNeverOverlapOrDeadlock() throws Exception {
+        RoomReservationLocks locks = new RoomReservationLocks(16, 10_000, 10_000);
+        AtomicInteger groupTimeouts = new AtomicInteger();
+
+        runConcurrently(10_000, random -> {
+            LocalDate checkIn = FIRST_NIGHT.plusDays(random.nextInt(60));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(5));
+
+            if (random.nextBoolean()) {
+                long roomId = 1 + random.nextInt(ROOMS);
+                assertTrue(locks.acquire(roomId));
+                try {
+                    book(roomId, checkIn, checkOut);
+                } finally {
+                    locks.release(roomId);
+                }
+                return;
+            }
+
+            // Rooms in random order, as a group request would list them
+            List<Long> roomIds = new ArrayList<>();
+            int size = 2 + random.nextInt(4);
+            while (roomIds.size() < size) {
+                long roomId = 1 + random.nextInt(ROOMS);
+                if (!roomIds.contains(roomId)) {
+                    roomIds.add(roomId);
+                }
+            }
+
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                if (!locks.acquireAllUntilCompletion(roomIds)) {
+                    groupTimeouts.incrementAndGet();
+                    return;
+                }
+                for (Long roomId : roomIds) {
+                    book(roomId, checkIn, checkOut);
+                }
+            } finally {
+                completeTransaction();
+            }
+        });
+
+        assertEquals(0, doubleBookings.get());
+        assertEquals(0, groupTimeouts.get());
+    }
+
+    @Test
+    void differentRoomsDoNotBlockEachOther() throws Exception {
+        RoomReservationLocks locks = new RoomReservationLocks(256, 10_000, 10_000);
+        CountDownLatch bothHeld = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (long roomId : new long[]{1, 2}) {
+                executor.submit(() -> {
+                    assertTrue(locks.acquire(roomId));
+                    try {
+                        bothHeld.countDown();
+                        bothHeld.await(5, TimeUnit.SECONDS);
+                    } finally {
+                        locks.release(roomId);
+                    }
+                    return null;
+                });
+            }
+            assertTrue(bothHeld.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void busyStripeIsSkippedNotWaitedOn() throws Exception {
+        RoomReservationLocks locks = new RoomReservationLocks(256, 10_000, 10_000);
+        assertTrue(locks.acquire(7L));
+        try {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                assertFalse(executor.submit(() -> locks.tryAcquire(7L)).get(1, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdownNow();
+            }
+        } finally {
+            locks.release(7L);
+        }
+    }
+
+    // Check-then-claim, as BookingService does; yields between the two steps to widen any race
+    private void book(long roomId, LocalDate checkIn, LocalDate checkOut) {
+        Map<LocalDate, Integer> nights = ledger.computeIfAbsent(roomId, id -> new ConcurrentHashMap<>());
+        for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+            if (nights.containsKey(night)) {
+                return;
+            }
+        }
+
+        Thread.yield();
+
+        int bookingId = bookingIds.incrementAndGet();
+        for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+            if (nights.putIfAbsent(night, bookingId) != null) {
+                doubleBookings.incrementAndGet();
+            }
+        }
+        booked.incrementAndGet();
+
+        // Cancel now and then so rooms keep getting rebooked
+        if (bookingId % 3 == 0) {
+            nights.values().removeIf(id -> id == bookingId);
+        }
+    }
+
+    private static void completeTransaction() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private interface Attempt {
+        void run(ThreadLocalRandom random) throws Exception;
+    }
+
+    private static void runConcurrently(int attempts, Attempt attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                attempt.run(ThreadLocalRandom.current());
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "booking threads did not finish (deadlock?)");
+        for (Future<?> result : results) {
+            result.get();
+        }
+    }
+}
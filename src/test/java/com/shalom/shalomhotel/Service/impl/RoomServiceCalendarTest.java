@@ -0,0 +1,99 @@
+package com.shalom.shalomhotel.Service.impl;
+
+import com.shalom.shalomhotel.Dto.CalendarDayDTO;
+import com.shalom.shalomhotel.Dto.Response;
+import com.shalom.shalomhotel.entity.Room;
+import com.shalom.shalomhotel.entity.RoomType;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.repository.RoomRepository;
+import com.shalom.shalomhotel.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomServiceCalendarTest {
+
+    private static final Long TYPE_ID = 7L;
+
+    private final RoomTypeRepository roomTypeRepository = mock(RoomTypeRepository.class);
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final RoomService roomService = new RoomService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(roomService, "roomTypeRepository", roomTypeRepository);
+        ReflectionTestUtils.setField(roomService, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(roomService, "bookingRepository", bookingRepository);
+
+        RoomType deluxe = new RoomType();
+        deluxe.setId(TYPE_ID);
+        deluxe.setTypeName("Deluxe");
+        when(roomTypeRepository.findByTypeName("Deluxe")).thenReturn(Optional.of(deluxe));
+        // Rooms 1-3 can be sold; room 4 is under maintenance
+        when(roomRepository.findIdsByRoomTypeIdAndStatusNot(TYPE_ID, Room.RoomStatus.MAINTENANCE))
+                .thenReturn(List.of(1L, 2L, 3L));
+    }
+
+    // A booked room is RESERVED, yet it still counts as free on the nights its booking does not hold
+    @Test
+    void bookedNightsLowerOnlyTheirOwnDays() {
+        when(bookingRepository.findActiveStaysForTypeInRange(TYPE_ID, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 4, 1)))
+                .thenReturn(List.of(
+                        stay(1L, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 12)),
+                        stay(2L, LocalDate.of(2026, 3, 11), LocalDate.of(2026, 3, 13)),
+                        stay(3L, LocalDate.of(2026, 2, 27), LocalDate.of(2026, 3, 2))));
+
+        List<CalendarDayDTO> days = calendar("2026-03");
+
+        assertEquals(31, days.size());
+        assertEquals(2, count(days, 1));
+        assertEquals(3, count(days, 2));
+        assertEquals(3, count(days, 9));
+        assertEquals(2, count(days, 10));
+        assertEquals(1, count(days, 11));
+        assertEquals(2, count(days, 12));
+        assertEquals(3, count(days, 13));
+    }
+
+    // Stays on a room under maintenance are not subtracted twice: the room was never counted
+    @Test
+    void roomsUnderMaintenanceAreNeverOffered() {
+        when(bookingRepository.findActiveStaysForTypeInRange(TYPE_ID, LocalDate.of(2026, 3, 1), LocalDate.of(2026, 4, 1)))
+                .thenReturn(List.of(stay(4L, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 12))));
+
+        List<CalendarDayDTO> days = calendar("2026-03");
+
+        for (CalendarDayDTO day : days) {
+            assertEquals(3, day.getAvailableCount(), "free rooms on " + day.getDate());
+        }
+    }
+
+    private List<CalendarDayDTO> calendar(String month) {
+        Response response = roomService.getAvailabilityCalendar("Deluxe", month, 1);
+        assertEquals("Availability calendar retrieved successfully", response.getMessage());
+        return response.getCalendarDays();
+    }
+
+    private static int count(List<CalendarDayDTO> days, int dayOfMonth) {
+        return days.get(dayOfMonth - 1).getAvailableCount();
+    }
+
+    private static BookingRepository.StayView stay(Long roomId, LocalDate checkIn, LocalDate checkOut) {
+        return new BookingRepository.StayView() {
+            public Long getId() { return null; }
+            public Long getRoomId() { return roomId; }
+            public Long getRoomTypeId() { return TYPE_ID; }
+            public LocalDate getCheckInDate() { return checkIn; }
+            public LocalDate getCheckOutDate() { return checkOut; }
+        };
+    }
+}
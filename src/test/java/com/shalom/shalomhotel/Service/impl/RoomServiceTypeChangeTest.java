@@ -0,0 +1,112 @@
+package com.shalom.shalomhotel.Service.impl;
+
+import com.shalom.shalomhotel.Dto.Response;
+import com.shalom.shalomhotel.Service.AvailabilityCache;
+import com.shalom.shalomhotel.Service.RoomAvailabilityIndex;
+import com.shalom.shalomhotel.Service.RoomInventoryService;
+import com.shalom.shalomhotel.entity.Room;
+import com.shalom.shalomhotel.entity.RoomType;
+import com.shalom.shalomhotel.repository.BookingRepository;
+import com.shalom.shalomhotel.repository.RoomRepository;
+import com.shalom.shalomhotel.repository.RoomTypeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoomServiceTypeChangeTest {
+
+    private static final Long ROOM_ID = 12L;
+    private static final Long STANDARD_ID = 1L;
+    private static final Long DELUXE_ID = 2L;
+
+    private final RoomTypeRepository roomTypeRepository = mock(RoomTypeRepository.class);
+    private final RoomRepository roomRepository = mock(RoomRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final RoomInventoryService inventoryService = mock(RoomInventoryService.class);
+    private final RoomService roomService = new RoomService();
+
+    private final LocalDate today = LocalDate.now();
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(roomService, "roomTypeRepository", roomTypeRepository);
+        ReflectionTestUtils.setField(roomService, "roomRepository", roomRepository);
+        ReflectionTestUtils.setField(roomService, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(roomService, "inventoryService", inventoryService);
+        ReflectionTestUtils.setField(roomService, "availabilityCache", mock(AvailabilityCache.class));
+        ReflectionTestUtils.setField(roomService, "availabilityIndex", mock(RoomAvailabilityIndex.class));
+
+        room = new Room();
+        room.setId(ROOM_ID);
+        room.setRoomNumber("101");
+        room.setRoomType(roomType(STANDARD_ID));
+        when(roomRepository.findById(ROOM_ID)).thenReturn(Optional.of(room));
+        when(roomRepository.findByIdForUpdate(ROOM_ID)).thenReturn(Optional.of(room));
+        when(roomRepository.save(any(Room.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(roomTypeRepository.findById(STANDARD_ID)).thenReturn(Optional.of(roomType(STANDARD_ID)));
+        when(roomTypeRepository.findById(DELUXE_ID)).thenReturn(Optional.of(roomType(DELUXE_ID)));
+    }
+
+    // The sold nights follow the room: released from the old type and recorded under the new one, from tonight on
+    @Test
+    void typeChangeMovesTheRoomsSoldNights() {
+        LocalDate arrived = today.minusDays(2);
+        LocalDate departs = today.plusDays(1);
+        LocalDate nextIn = today.plusDays(10);
+        LocalDate nextOut = today.plusDays(13);
+        when(bookingRepository.findActiveStaysForRoom(ROOM_ID, today))
+                .thenReturn(List.of(stay(arrived, departs), stay(nextIn, nextOut)));
+
+        Response response = roomService.updateRoom(ROOM_ID, null, null, DELUXE_ID, null, null, null);
+
+        assertEquals("Room updated successfully", response.getMessage());
+        assertEquals(DELUXE_ID, room.getRoomType().getId());
+        verify(roomRepository).findByIdForUpdate(ROOM_ID);
+        verify(inventoryService).releaseStay(STANDARD_ID, today, departs);
+        verify(inventoryService).recordStay(DELUXE_ID, today, departs);
+        verify(inventoryService).releaseStay(STANDARD_ID, nextIn, nextOut);
+        verify(inventoryService).recordStay(DELUXE_ID, nextIn, nextOut);
+        verify(inventoryService).syncCapacity(STANDARD_ID);
+        verify(inventoryService).syncCapacity(DELUXE_ID);
+    }
+
+    @Test
+    void keepingTheTypeLeavesTheInventoryAlone() {
+        Response response = roomService.updateRoom(ROOM_ID, null, null, STANDARD_ID, null, null, null);
+
+        assertEquals("Room updated successfully", response.getMessage());
+        verify(bookingRepository, never()).findActiveStaysForRoom(anyLong(), any());
+        verify(inventoryService, never()).releaseStay(any(), any(), any());
+        verify(inventoryService, never()).recordStay(any(), any(), any());
+    }
+
+    private static RoomType roomType(Long id) {
+        RoomType roomType = new RoomType();
+        roomType.setId(id);
+        roomType.setTypeName("Type " + id);
+        return roomType;
+    }
+
+    private static BookingRepository.StayView stay(LocalDate checkIn, LocalDate checkOut) {
+        return new BookingRepository.StayView() {
+            public Long getId() { return null; }
+            public Long getRoomId() { return ROOM_ID; }
+            public Long getRoomTypeId() { return STANDARD_ID; }
+            public LocalDate getCheckInDate() { return checkIn; }
+            public LocalDate getCheckOutDate() { return checkOut; }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package com.shalom.shalomhotel.repository;
+
+import com.shalom.shalomhotel.entity.Room;
+import com.shalom.shalomhotel.entity.RoomType;
+import com.shalom.shalomhotel.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Availability search by room type: the original scan (load the type's rooms, then one overlap query per room)
+// against the single NOT EXISTS statement of findAvailableRoomsByTypeAndDates, at 50, 500 and 5,000 rooms.
+// Half the rooms hold a booking that overlaps the searched stay. Statements are counted with Hibernate statistics,
+// latency is the median of the timed runs. Needs a MySQL database, so it only runs when DB_URL is set; the seeded
+// rows are removed afterwards.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AvailabilitySearchBenchmarkTest {
+
+    private static final int WARMUP_RUNS = 3;
+    private static final int TIMED_RUNS = 10;
+
+    private static final String INSERT_ROOM =
+            "INSERT INTO rooms (room_number, floor_number, room_type_id, status, has_view, is_accessible, version) " +
+            "VALUES (?, 1, ?, 'AVAILABLE', false, false, 0)";
+
+    private static final String INSERT_BOOKING =
+            "INSERT INTO bookings (booking_confirmation_code, room_id, user_id, check_in_date, check_out_date, " +
+            "number_of_guests, num_of_adults, num_of_children, total_price, booking_status, booking_date, version) " +
+            "VALUES (?, ?, ?, ?, ?, 1, 1, 0, 100, 'CONFIRMED', ?, 0)";
+
+    @Autowired
+    private RoomRepository roomRepository;
+    @Autowired
+    private RoomTypeRepository roomTypeRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final String run = "bench" + System.currentTimeMillis();
+    private final List<Long> seededTypeIds = new ArrayList<>();
+    private Long userId;
+
+    private final LocalDate checkIn = LocalDate.now().plusDays(30);
+    private final LocalDate checkOut = checkIn.plusDays(3);
+
+    private record Measurement(long statements, double medianMillis, List<Long> roomIds) {
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {50, 500, 5000})
+    void scanVersusSingleQuery(int roomCount) {
+        Long roomTypeId = seed(roomCount);
+
+        Measurement scan = measure(() -> scan(roomTypeId));
+        Measurement query = measure(() -> query(roomTypeId));
+
+        System.out.printf("availability search, %d rooms: scan %d statements %.2f ms, query %d statements %.2f ms%n",
+                roomCount, scan.statements(), scan.medianMillis(), query.statements(), query.medianMillis());
+
+        assertEquals(scan.roomIds(), query.roomIds());
+        assertEquals(roomCount / 2, query.roomIds().size());
+        assertEquals(1, query.statements());
+        assertTrue(scan.statements() > roomCount, "the scan issues one overlap query per room");
+    }
+
+    // Original path: the type's rooms, then an overlap query for every AVAILABLE one; the room type is read
+    // for each result as the DTO mapping does
+    private List<Long> scan(Long roomTypeId) {
+        List<Long> ids = new ArrayList<>();
+        for (Room room : roomRepository.findByRoomTypeId(roomTypeId)) {
+            if (room.getStatus() == Room.RoomStatus.AVAILABLE
+                    && bookingRepository.findOverlappingBookings(room.getId(), checkIn, checkOut).isEmpty()) {
+                room.getRoomType().getTypeName();
+                ids.add(room.getId());
+            }
+        }
+        // findByRoomTypeId has no ORDER BY; the query returns rooms in id order
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private List<Long> query(Long roomTypeId) {
+        List<Long> ids = new ArrayList<>();
+        for (Room room : roomRepository.findAvailableRoomsByTypeAndDates(roomTypeId, checkIn, checkOut)) {
+            room.getRoomType().getTypeName();
+            ids.add(room.getId());
+        }
+        return ids;
+    }
+
+    // Every run gets its own transaction, so no run is served from the previous one's persistence context
+    private Measurement measure(Supplier<List<Long>> search) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            transactionTemplate.execute(status -> search.get());
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long[] nanos = new long[TIMED_RUNS];
+        long statements = 0;
+        List<Long> roomIds = List.of();
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            statistics.clear();
+            long start = System.nanoTime();
+            roomIds = transactionTemplate.execute(status -> search.get());
+            nanos[i] = System.nanoTime() - start;
+            statements = statistics.getPrepareStatementCount();
+        }
+        Arrays.sort(nanos);
+        return new Measurement(statements, nanos[TIMED_RUNS / 2] / 1_000_000.0, roomIds);
+    }
+
+    private Long seed(int roomCount) {
+        if (userId == null) {
+            User user = new User();
+            user.setEmail(run + "@example.com");
+            user.setName("Benchmark Guest");
+            user.setPhoneNumber("0000000000");
+            user.setPassword("benchmark");
+            user.setRole("USER");
+            userId = userRepository.save(user).getId();
+        }
+
+        RoomType roomType = new RoomType();
+        roomType.setTypeName(run + "-" + roomCount);
+        roomType.setDescription("Availability benchmark");
+        roomType.setPricePerNight(BigDecimal.valueOf(100));
+        roomType.setMaxCapacity(2);
+        Long roomTypeId = roomTypeRepository.save(roomType).getId();
+        seededTypeIds.add(roomTypeId);
+
+        List<Object[]> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(new Object[]{run + "-" + roomCount + "-" + i, roomTypeId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ROOM, rooms);
+
+        List<Long> roomIds = jdbcTemplate.queryForList(
+                "SELECT id FROM rooms WHERE room_type_id = ? ORDER BY id", Long.class, roomTypeId);
+        Timestamp bookingDate = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> bookings = new ArrayList<>(roomCount / 2);
+        for (int i = 0; i < roomIds.size(); i += 2) {
+            bookings.add(new Object[]{run + "-" + roomCount + "-" + i, roomIds.get(i), userId,
+                    Date.valueOf(checkIn.plusDays(1)), Date.valueOf(checkOut.plusDays(1)), bookingDate});
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOKING, bookings);
+        return roomTypeId;
+    }
+
+    @AfterAll
+    void removeSeededRows() {
+        if (!seededTypeIds.isEmpty()) {
+            MapSqlParameterSource types = new MapSqlParameterSource("typeIds", seededTypeIds);
+            namedJdbcTemplate.update("DELETE FROM bookings WHERE room_id IN " +
+                    "(SELECT id FROM rooms WHERE room_type_id IN (:typeIds))", types);
+            namedJdbcTemplate.update("DELETE FROM rooms WHERE room_type_id IN (:typeIds)", types);
+            namedJdbcTemplate.update("DELETE FROM room_type_inventory WHERE room_type_id IN (:typeIds)", types);
+            namedJdbcTemplate.update("DELETE FROM room_types WHERE id IN (:typeIds)", types);
+        }
+        if (userId != null) {
+            userRepository.deleteById(userId);
+        }
+    }
+}